@@ -0,0 +1,144 @@
+package com.sales.management.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas por cache (tag "cache"), expostas em /actuator/metrics:
+ * cache.gets (result=hit|miss, level=local|remote), cache.hit.ratio, cache.evictions,
+ * cache.get.latency, cache.put.latency, cache.payload.size e cache.redis.errors (operation).
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public Meters forCache(String cacheName) {
+        return meters.computeIfAbsent(cacheName, Meters::new);
+    }
+
+    /**
+     * Envolve o serializador para registrar o tamanho dos valores gravados no Redis
+     */
+    public RedisSerializer<Object> metered(String cacheName, RedisSerializer<Object> delegate) {
+        Meters cacheMeters = forCache(cacheName);
+        return new RedisSerializer<>() {
+            @Override
+            public byte[] serialize(Object value) throws SerializationException {
+                byte[] bytes = delegate.serialize(value);
+                if (bytes != null) {
+                    cacheMeters.payloadSize.record(bytes.length);
+                }
+                return bytes;
+            }
+
+            @Override
+            public Object deserialize(byte[] bytes) throws SerializationException {
+                return delegate.deserialize(bytes);
+            }
+        };
+    }
+
+    /**
+     * Medidores de um cache, registrados uma vez e reutilizados no caminho quente
+     */
+    public final class Meters {
+
+        private final String cacheName;
+        private final Counter localHits;
+        private final Counter remoteHits;
+        private final Counter misses;
+        private final Counter evictions;
+        private final Timer getLatency;
+        private final Timer putLatency;
+        private final DistributionSummary payloadSize;
+
+        private Meters(String cacheName) {
+            this.cacheName = cacheName;
+            this.localHits = gets("hit", "local");
+            this.remoteHits = gets("hit", "remote");
+            this.misses = gets("miss", "remote");
+            this.evictions = Counter.builder("cache.evictions")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry);
+            this.getLatency = latency("cache.get.latency");
+            this.putLatency = latency("cache.put.latency");
+            this.payloadSize = DistributionSummary.builder("cache.payload.size")
+                    .tag("cache", cacheName)
+                    .baseUnit("bytes")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("cache.hit.ratio", this, Meters::hitRatio)
+                    .tag("cache", cacheName)
+                    .register(meterRegistry);
+        }
+
+        public void hit(boolean local) {
+            (local ? localHits : remoteHits).increment();
+        }
+
+        public void miss() {
+            misses.increment();
+        }
+
+        public void eviction() {
+            evictions.increment();
+        }
+
+        /**
+         * @param startNanos valor de System.nanoTime() no início da leitura
+         */
+        public void recordGet(long startNanos) {
+            getLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordPut(long startNanos) {
+            putLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Falha de comunicação com o Redis (operation: get, put ou evict)
+         */
+        public void error(String operation) {
+            Counter.builder("cache.redis.errors")
+                    .tag("cache", cacheName)
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        private double hitRatio() {
+            double hits = localHits.count() + remoteHits.count();
+            double total = hits + misses.count();
+            return total > 0 ? hits / total : 0;
+        }
+
+        private Counter gets(String result, String level) {
+            return Counter.builder("cache.gets")
+                    .tag("cache", cacheName)
+                    .tag("result", result)
+                    .tag("level", level)
+                    .register(meterRegistry);
+        }
+
+        private Timer latency(String name) {
+            return Timer.builder(name)
+                    .tag("cache", cacheName)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.sales.management.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registro de tags das entradas de cache em sets do Redis ("tags:{cache}:{tag}" -> chaves),
+ * para que uma escrita remova só as entradas afetadas em vez de usar allEntries = true.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheTagRegistry {
+
+    private static final String TAG_PREFIX = "tags:";
+    private static final String ALL_KEYS_TAG = "__all__";
+
+    /**
+     * Maior que o TTL de qualquer cache: os sets somem sozinhos se ninguém mais registrar
+     */
+    private static final Duration TAG_TTL = Duration.ofHours(1);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    /**
+     * Associa a entrada (cacheName, key) às tags informadas
+     */
+    public void register(String cacheName, Object key, String... tags) {
+        if (!circuitBreaker.isAvailable()) {
+            // Entrada fica só no L1; remoções durante a indisponibilidade limpam o cache inteiro
+            return;
+        }
+        String member = String.valueOf(key);
+        try {
+            for (String tag : tags) {
+                addMember(tagKey(cacheName, tag), member);
+            }
+            addMember(tagKey(cacheName, ALL_KEYS_TAG), member);
+        } catch (Exception e) {
+            log.error("Erro ao registrar tags [{}:{}]: {}", cacheName, member, e.getMessage());
+        }
+    }
+
+    /**
+     * Registro em lote (warm-up): cada chave com a sua tag, num único pipeline
+     */
+    public void registerAll(String cacheName, Map<?, String> tagByKey) {
+        if (tagByKey.isEmpty() || !circuitBreaker.isAvailable()) {
+            return;
+        }
+        String allKeysTag = tagKey(cacheName, ALL_KEYS_TAG);
+        String[] members = tagByKey.keySet().stream().map(String::valueOf).toArray(String[]::new);
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    RedisOperations<String, String> pipeline = operations;
+                    tagByKey.forEach((key, tag) -> {
+                        pipeline.opsForSet().add(tagKey(cacheName, tag), String.valueOf(key));
+                        pipeline.expire(tagKey(cacheName, tag), TAG_TTL);
+                    });
+                    pipeline.opsForSet().add(allKeysTag, members);
+                    pipeline.expire(allKeysTag, TAG_TTL);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.error("Erro ao registrar tags em lote [{}]: {}", cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove as entradas das tags após o commit da transação corrente (imediatamente se não houver uma):
+     * antes do commit uma leitura concorrente ainda vê a linha antiga e a gravaria de volta no cache
+     */
+    public void evictAfterCommit(String cacheName, String... tags) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(cacheName, tags);
+                }
+            });
+        } else {
+            evict(cacheName, tags);
+        }
+    }
+
+    /**
+     * Remove do cache todas as entradas marcadas com alguma das tags
+     * @return quantidade de entradas removidas
+     */
+    public int evict(String cacheName, String... tags) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return 0;
+        }
+
+        if (!circuitBreaker.isAvailable()) {
+            // Sem os sets de tags: limpa o cache (reaplicado no Redis quando o circuito fechar)
+            cache.clear();
+            return 0;
+        }
+
+        int evicted = 0;
+        try {
+            String allKeysTag = tagKey(cacheName, ALL_KEYS_TAG);
+            for (String tag : tags) {
+                String tagKey = tagKey(cacheName, tag);
+                Set<String> members = redisTemplate.opsForSet().members(tagKey);
+                if (members != null) {
+                    for (String member : members) {
+                        cache.evict(member);
+                        redisTemplate.opsForSet().remove(allKeysTag, member);
+                        evicted++;
+                    }
+                }
+                redisTemplate.unlink(tagKey);
+            }
+
+            // Estimativa das entradas que um allEntries = true teria derrubado sem necessidade
+            // (membros de entradas já expiradas no Redis continuam no set até o TTL dele)
+            Long remaining = redisTemplate.opsForSet().size(allKeysTag);
+            Counter.builder("cache.tag.evictions")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry)
+                    .increment(evicted);
+            Counter.builder("cache.tag.evictions.avoided")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry)
+                    .increment(remaining != null ? remaining : 0);
+        } catch (Exception e) {
+            // Sem o registro não dá para saber o que remover: cai para a limpeza completa
+            log.error("Erro ao remover tags {} do cache [{}]: {}", tags, cacheName, e.getMessage());
+            cache.clear();
+        }
+        return evicted;
+    }
+
+    private void addMember(String tagKey, String member) {
+        redisTemplate.opsForSet().add(tagKey, member);
+        redisTemplate.expire(tagKey, TAG_TTL);
+    }
+
+    private String tagKey(String cacheName, String tag) {
+        return TAG_PREFIX + cacheName + ":" + tag;
+    }
+}
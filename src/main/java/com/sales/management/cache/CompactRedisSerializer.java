@@ -0,0 +1,157 @@
+package com.sales.management.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serializador compacto dos valores de cache no Redis.
+ * Formato: [versão][flags][computedAt se StaleableValue][payload Smile, comprimido se grande].
+ * O payload leva o tipo completo (default typing, como no GenericJackson2JsonRedisSerializer), então raízes
+ * genéricas como {@code List<ProductResponse>} ou Stream.toList() voltam com os tipos dos elementos; o Smile grava
+ * cada nome de classe repetido uma vez só. Entradas de outra versão do formato (ou do JSON antigo) são
+ * tratadas como miss e recalculadas.
+ */
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * Incrementar quando o formato ou os DTOs em cache mudarem de forma incompatível
+     */
+    public static final byte FORMAT_VERSION = 2;
+
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final byte FLAG_STALEABLE = 1 << 1;
+
+    /**
+     * Só desserializa tipos da aplicação e da JDK
+     */
+    private static final List<String> TRUSTED_PREFIXES = List.of(
+            "com.sales.management.", "java.lang.", "java.util.", "java.math.", "java.time.");
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold tamanho (bytes) a partir do qual o payload é comprimido
+     */
+    public CompactRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        ObjectMapper mapper = new ObjectMapper(smileFactory);
+        mapper.registerModule(new JavaTimeModule());
+        // Campos novos em DTOs não invalidam entradas gravadas por uma versão anterior
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        BasicPolymorphicTypeValidator.Builder trustedTypes = BasicPolymorphicTypeValidator.builder();
+        TRUSTED_PREFIXES.forEach(trustedTypes::allowIfSubType);
+        mapper.activateDefaultTyping(trustedTypes.build(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+
+        // Raiz declarada como Object: até classes finais (ImmutableCollections$ListN, Long, enums) levam o tipo
+        this.writer = mapper.writerFor(Object.class);
+        this.reader = mapper.readerFor(Object.class);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        byte flags = 0;
+        long computedAt = 0;
+        Object root = value;
+        if (value instanceof StaleableValue staleable) {
+            flags |= FLAG_STALEABLE;
+            computedAt = staleable.getComputedAt();
+            root = staleable.getValue();
+        }
+
+        try {
+            byte[] payload = writer.writeValueAsBytes(root);
+            if (payload.length >= compressionThreshold) {
+                payload = compress(payload);
+                flags |= FLAG_COMPRESSED;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(flags);
+            if ((flags & FLAG_STALEABLE) != 0) {
+                out.writeLong(computedAt);
+            }
+            out.write(payload);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not serialize cache value", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            log.debug("Entrada de cache com formato incompatível ({}), tratada como miss", bytes[0]);
+            return null;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            in.readByte();
+            byte flags = in.readByte();
+            long computedAt = (flags & FLAG_STALEABLE) != 0 ? in.readLong() : 0;
+
+            byte[] payload = in.readAllBytes();
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                payload = decompress(payload);
+            }
+
+            Object value = reader.readValue(payload);
+            return (flags & FLAG_STALEABLE) != 0 ? new StaleableValue(value, computedAt) : value;
+        } catch (IOException e) {
+            // Inclui tipos fora de TRUSTED_PREFIXES e classes removidas/renomeadas em outro deploy
+            log.warn("Erro ao desserializar entrada de cache, tratada como miss: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] compress(byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(payload);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] decompress(byte[] payload) throws IOException {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(payload))) {
+            return in.readAllBytes();
+        }
+    }
+}
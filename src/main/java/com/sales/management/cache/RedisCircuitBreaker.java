@@ -0,0 +1,165 @@
+package com.sales.management.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker das operações de cache no Redis.
+ * Após cache.breaker.failure-threshold falhas (ou chamadas lentas) seguidas o circuito abre e
+ * as operações vão direto para o fallback (L1 local ou banco) sem esperar o timeout do Redis.
+ * Enquanto aberto, um PING em segundo plano a cada cache.breaker.probe-interval testa a
+ * recuperação; quando responde, o circuito fecha e os listeners de recuperação são executados.
+ * Estado exposto em cache.redis.breaker.state (0 = fechado, 1 = meio-aberto, 2 = aberto).
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker implements DisposableBean {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final int failureThreshold;
+    private final long slowCallMillis;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+    private final Counter rejected;
+    private final ScheduledExecutorService prober;
+
+    public RedisCircuitBreaker(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                               @Value("${cache.breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${cache.breaker.slow-call-ms:500}") long slowCallMillis,
+                               @Value("${cache.breaker.probe-interval:5}") long probeIntervalSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.failureThreshold = failureThreshold;
+        this.slowCallMillis = slowCallMillis;
+
+        Gauge.builder("cache.redis.breaker.state", state, current -> current.get().ordinal())
+                .register(meterRegistry);
+        this.rejected = Counter.builder("cache.redis.breaker.rejected")
+                .register(meterRegistry);
+
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-breaker-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probe, probeIntervalSeconds, probeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * true quando as operações no Redis devem ser tentadas
+     */
+    public boolean isAvailable() {
+        return state.get() == State.CLOSED;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Executa a operação no Redis ou, com o circuito aberto ou em falha de acesso ao Redis, o fallback.
+     * Outras exceções (ex: serialização) são propagadas sem afetar o circuito.
+     */
+    public <T> T execute(Supplier<T> action, Supplier<T> fallback) {
+        if (!isAvailable()) {
+            rejected.increment();
+            return fallback.get();
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = action.get();
+            onCompleted(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        } catch (DataAccessException e) {
+            onFailure(e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    public void run(Runnable action, Runnable fallback) {
+        execute(() -> {
+            action.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executado (na thread do probe) sempre que o circuito fecha após uma indisponibilidade
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    @Override
+    public void destroy() {
+        prober.shutdownNow();
+    }
+
+    private void onCompleted(long elapsedMillis) {
+        if (elapsedMillis >= slowCallMillis) {
+            onFailure("chamada lenta (" + elapsedMillis + " ms)");
+        } else {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    private void onFailure(String reason) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold
+                && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            log.warn("Circuito do Redis aberto após {} falhas seguidas: {}", failureThreshold, reason);
+        }
+    }
+
+    /**
+     * PING de recuperação (agendado a cada probe-interval; package-private para os testes)
+     */
+    void probe() {
+        if (!state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            consecutiveFailures.set(0);
+            state.set(State.CLOSED);
+            log.info("Redis respondeu, circuito fechado");
+            recoveryListeners.forEach(this::notifyRecovery);
+        } catch (Exception e) {
+            state.set(State.OPEN);
+            log.debug("Redis ainda indisponível: {}", e.getMessage());
+        }
+    }
+
+    private void notifyRecovery(Runnable listener) {
+        try {
+            listener.run();
+        } catch (Exception e) {
+            log.error("Erro ao processar recuperação do Redis: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.sales.management.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Envelope gravado nos caches com stale-while-revalidate: o valor e o instante em que foi calculado
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaleableValue {
+    private Object value;
+    private long computedAt;
+}
@@ -0,0 +1,184 @@
+package com.sales.management.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Proteção contra cache stampede:
+ * - single-flight: no mesmo nó, misses concorrentes da mesma chave esperam um único cálculo;
+ * - lease no Redis (SET NX PX): entre nós, só quem obtém o lease calcula; os demais aguardam o valor;
+ * - expiração antecipada probabilística (XFetch) para renovar chaves quentes antes do TTL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StampedeGuard {
+
+    private static final String LEASE_PREFIX = "lease:";
+    private static final Duration LEASE_TTL = Duration.ofSeconds(10);
+    private static final long POLL_INTERVAL_MS = 50;
+
+    /**
+     * beta do XFetch: valores maiores antecipam mais a renovação
+     */
+    private static final double XFETCH_BETA = 1.0;
+
+    /**
+     * Token usado quando o Redis está indisponível: calcula localmente sem lease
+     */
+    private static final String NO_LEASE = "";
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Calcula o valor de uma chave ausente uma única vez por nó e, via lease, por cluster.
+     * @param key    chave do cache
+     * @param lookup consulta o cache (null se ausente); usado para aproveitar o cálculo de outro nó
+     * @param loader calcula e grava o valor
+     */
+    public <T> T computeOnce(String key, Supplier<T> lookup, Supplier<T> loader) {
+        return singleFlight(key, () -> {
+            // Threads que chegam logo após o término de outro cálculo já encontram o valor
+            T cached = lookup.get();
+            if (cached != null) {
+                return cached;
+            }
+
+            String token = tryLease(key);
+            if (token == null) {
+                T computedElsewhere = awaitValue(lookup);
+                if (computedElsewhere != null) {
+                    return computedElsewhere;
+                }
+                // O dono do lease demorou demais ou falhou: calcula aqui
+            }
+            try {
+                return loader.get();
+            } finally {
+                release(key, token);
+            }
+        });
+    }
+
+    /**
+     * Executa o loader uma única vez por chave entre as threads deste nó
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T singleFlight(String key, Supplier<T> loader) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Inclui Error (OOM, StackOverflowError): sem isso as threads em join() esperariam para sempre
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * Tenta obter o lease de cálculo da chave
+     * @return token do lease, NO_LEASE se o Redis falhou, ou null se outro nó já está calculando
+     */
+    public String tryLease(String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            return circuitBreaker.execute(() -> {
+                Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LEASE_PREFIX + key, token, LEASE_TTL);
+                return Boolean.TRUE.equals(acquired) ? token : null;
+            }, () -> NO_LEASE);
+        } catch (Exception e) {
+            log.warn("Erro ao obter lease [{}]: {}", key, e.getMessage());
+            return NO_LEASE;
+        }
+    }
+
+    /**
+     * Libera o lease somente se ainda pertencer a este token
+     */
+    public void release(String key, String token) {
+        if (token == null || NO_LEASE.equals(token)) {
+            return;
+        }
+        try {
+            // Com o circuito aberto o lease expira sozinho pelo TTL
+            circuitBreaker.run(
+                    () -> redisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_PREFIX + key), token),
+                    () -> { });
+        } catch (Exception e) {
+            log.warn("Erro ao liberar lease [{}]: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * XFetch: decide se esta leitura deve renovar a chave antes de expirar.
+     * A chance cresce à medida que o TTL restante se aproxima do tempo de cálculo.
+     * @param ttlRemainingMillis TTL restante da chave (negativo = sem expiração/ausente)
+     * @param deltaMillis        duração do último cálculo
+     */
+    public static boolean shouldRefreshEarly(long ttlRemainingMillis, long deltaMillis) {
+        if (ttlRemainingMillis < 0 || deltaMillis <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        return -deltaMillis * XFETCH_BETA * Math.log(random) >= ttlRemainingMillis;
+    }
+
+    private <T> T awaitValue(Supplier<T> lookup) {
+        long deadline = System.currentTimeMillis() + LEASE_TTL.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            if (!circuitBreaker.isAvailable()) {
+                // Redis caiu durante a espera: calcula localmente
+                return null;
+            }
+            T value = lookup.get();
+            if (value != null) {
+                return value;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+}
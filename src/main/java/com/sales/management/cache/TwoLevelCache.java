@@ -0,0 +1,531 @@
+package com.sales.management.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.temporal.TemporalAccessor;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Cache com L1 local (Caffeine) na frente do L2 no Redis.
+ * Escritas e remoções vão para o Redis e são propagadas aos outros nós via pub/sub,
+ * que descartam suas cópias locais.
+ * <p>
+ * Com softTtl definido (stale-while-revalidate), os valores são gravados como {@link StaleableValue}:
+ * depois do soft TTL o valor antigo continua sendo servido até o TTL do Redis (hard TTL)
+ * enquanto uma única tarefa em segundo plano o recalcula.
+ * <p>
+ * Com o Redis indisponível (circuito aberto) leituras viram miss, escritas ficam só no L1 e
+ * remoções são guardadas para serem reaplicadas no Redis quando ele voltar.
+ * <p>
+ * Os DTOs em cache são mutáveis e o L1 é compartilhado entre as threads do nó, então o L1 guarda
+ * valores imutáveis como estão e os demais serializados: cada leitura recebe a sua cópia.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    /**
+     * Idade (s) do valor servido por um cache stale-while-revalidate
+     */
+    public static final String AGE_HEADER = "X-Cache-Age";
+
+    /**
+     * "true" quando o valor servido já passou do soft TTL
+     */
+    public static final String STALE_HEADER = "X-Cache-Stale";
+
+    /**
+     * Atributos da requisição com a idade e o stale já informados (vários valores na mesma resposta)
+     */
+    private static final String AGE_ATTRIBUTE = TwoLevelCache.class.getName() + ".age";
+    private static final String STALE_ATTRIBUTE = TwoLevelCache.class.getName() + ".stale";
+
+    /**
+     * Leituras feitas dentro de ignoringAge não alteram os cabeçalhos de idade
+     */
+    private static final ThreadLocal<Boolean> AGE_IGNORED = new ThreadLocal<>();
+
+    /**
+     * Acima disso as remoções pendentes viram uma limpeza completa do cache na recuperação
+     */
+    private static final int MAX_PENDING_EVICTIONS = 10_000;
+
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final RedisSerializer<Object> localSerializer;
+    private final TwoLevelCacheManager manager;
+    private final Duration softTtl;
+    private final Executor refreshExecutor;
+    private final CacheMetrics.Meters meters;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Set<Object> pendingEvictions = ConcurrentHashMap.newKeySet();
+    private volatile boolean pendingClear;
+
+    TwoLevelCache(String name, Cache remote,
+                  com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                  RedisSerializer<Object> localSerializer,
+                  TwoLevelCacheManager manager, Duration softTtl, Executor refreshExecutor,
+                  CacheMetrics.Meters meters) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.localSerializer = localSerializer;
+        this.manager = manager;
+        this.softTtl = softTtl;
+        this.refreshExecutor = refreshExecutor;
+        this.meters = meters;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper stored = lookup(key);
+        if (stored == null) {
+            return null;
+        }
+        if (stored.get() instanceof StaleableValue staleable) {
+            exposeAge(staleable);
+            return new SimpleValueWrapper(staleable.getValue());
+        }
+        return stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Usado por @Cacheable(sync = true): o miss é calculado uma vez por nó (single-flight)
+     * e, via lease no Redis, uma vez entre os nós
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper stored = lookup(key);
+        if (stored != null) {
+            if (stored.get() instanceof StaleableValue staleable) {
+                if (isStale(staleable)) {
+                    scheduleRefresh(key, valueLoader);
+                }
+                exposeAge(staleable);
+                return (T) staleable.getValue();
+            }
+            return (T) stored.get();
+        }
+
+        return manager.getStampedeGuard().computeOnce(
+                name + "::" + localKey(key),
+                () -> (T) unwrap(callRemote("get", () -> remote.get(key), () -> null)),
+                () -> load(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = wrap(value);
+        putRemote(key, stored);
+        if (value != null) {
+            putLocal(localKey(key), stored);
+        } else {
+            local.invalidate(localKey(key));
+        }
+        manager.publishEviction(name, localKey(key));
+    }
+
+    /**
+     * Carga em lote (warm-up): grava no Redis num único pipeline e no L1, sem publicar invalidação,
+     * já que nenhum outro nó tem valor mais novo que o que acabou de ser lido do banco
+     */
+    public void putAllQuietly(Map<?, ?> values) {
+        Map<Object, Object> stored = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                stored.put(key, wrap(value));
+            }
+        });
+        if (stored.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (remote instanceof RedisCache redisCache) {
+            RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+            runRemote("put", () -> manager.pipelined(connection -> stored.forEach((key, value) -> {
+                byte[] redisKey = ByteUtils.getBytes(
+                        config.getKeySerializationPair().write(config.getKeyPrefixFor(name) + localKey(key)));
+                byte[] redisValue = ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+                Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                connection.stringCommands().set(redisKey, redisValue,
+                        ttl != null && ttl.toMillis() > 0 ? Expiration.from(ttl) : Expiration.persistent(),
+                        RedisStringCommands.SetOption.upsert());
+            })), () -> { });
+        } else {
+            stored.forEach((key, value) -> runRemote("put", () -> remote.put(key, value), () -> { }));
+        }
+        meters.recordPut(start);
+        stored.forEach((key, value) -> putLocal(localKey(key), value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        long start = System.nanoTime();
+        ValueWrapper existing = callRemote("put", () -> remote.putIfAbsent(key, wrap(value)), () -> null);
+        meters.recordPut(start);
+        if (existing != null) {
+            putLocal(localKey(key), existing.get());
+            return new SimpleValueWrapper(unwrap(existing));
+        }
+        if (value != null) {
+            putLocal(localKey(key), wrap(value));
+        }
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        runRemote("evict", () -> remote.evict(key), () -> deferEviction(key));
+        meters.eviction();
+        local.invalidate(localKey(key));
+        manager.publishEviction(name, localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = callRemote("evict", () -> remote.evictIfPresent(key), () -> {
+            deferEviction(key);
+            return false;
+        });
+        if (evicted) {
+            meters.eviction();
+        }
+        local.invalidate(localKey(key));
+        manager.publishEviction(name, localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        runRemote("evict", remote::clear, this::deferClear);
+        meters.eviction();
+        local.invalidateAll();
+        manager.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = callRemote("evict", remote::invalidate, () -> {
+            deferClear();
+            return false;
+        });
+        meters.eviction();
+        local.invalidateAll();
+        manager.publishClear(name);
+        return invalidated;
+    }
+
+    /**
+     * Remove só a cópia local (mensagem de invalidação vinda de outro nó)
+     */
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    /**
+     * Reaplica no Redis (e nos outros nós) as remoções feitas com o circuito aberto
+     */
+    void replayPendingEvictions() {
+        if (pendingClear) {
+            pendingClear = false;
+            pendingEvictions.clear();
+            clear();
+            return;
+        }
+        for (Object key : List.copyOf(pendingEvictions)) {
+            pendingEvictions.remove(key);
+            evict(key);
+        }
+    }
+
+    private void deferEviction(Object key) {
+        if (pendingEvictions.size() >= MAX_PENDING_EVICTIONS) {
+            pendingClear = true;
+        } else {
+            pendingEvictions.add(key);
+        }
+    }
+
+    private void deferClear() {
+        pendingClear = true;
+    }
+
+    /**
+     * Valor na forma gravada (envelope, se stale-while-revalidate), buscando no L1 e depois no Redis
+     */
+    private ValueWrapper lookup(Object key) {
+        long start = System.nanoTime();
+        String localKey = localKey(key);
+        ValueWrapper cached = getLocal(localKey);
+        if (cached != null) {
+            meters.hit(true);
+            meters.recordGet(start);
+            return cached;
+        }
+
+        ValueWrapper value = callRemote("get", () -> remote.get(key), () -> null);
+        meters.recordGet(start);
+        if (value != null) {
+            meters.hit(false);
+            putLocal(localKey, value.get());
+        } else {
+            meters.miss();
+        }
+        return value;
+    }
+
+    /**
+     * Grava no L1 uma cópia que o chamador não consegue alterar: o próprio valor se for imutável,
+     * senão os bytes serializados
+     */
+    private void putLocal(String localKey, Object stored) {
+        if (stored == null) {
+            return;
+        }
+        if (isImmutable(stored)) {
+            local.put(localKey, new SimpleValueWrapper(stored));
+            return;
+        }
+        try {
+            local.put(localKey, new SimpleValueWrapper(new LocalCopy(localSerializer.serialize(stored))));
+        } catch (RuntimeException e) {
+            // Sem cópia segura o valor não vai para o L1; as leituras seguem pelo Redis
+            log.warn("Valor do cache [{}] não pôde ser copiado para o L1: {}", name, e.getMessage());
+            local.invalidate(localKey);
+        }
+    }
+
+    /**
+     * Lê do L1 materializando uma cópia nova dos valores serializados
+     */
+    private ValueWrapper getLocal(String localKey) {
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached == null || !(cached.get() instanceof LocalCopy copy)) {
+            return cached;
+        }
+        Object value;
+        try {
+            value = localSerializer.deserialize(copy.bytes());
+        } catch (RuntimeException e) {
+            value = null;
+        }
+        if (value == null) {
+            local.invalidate(localKey);
+            return null;
+        }
+        return new SimpleValueWrapper(value);
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Enum<?>
+                || value instanceof BigDecimal
+                || value instanceof BigInteger
+                || (value instanceof Number && value.getClass().getName().startsWith("java.lang."))
+                || (value instanceof TemporalAccessor && value.getClass().getName().startsWith("java.time."));
+    }
+
+    private void putRemote(Object key, Object stored) {
+        long start = System.nanoTime();
+        // Com o Redis fora o valor fica só no L1, limitado pelo TTL local
+        runRemote("put", () -> remote.put(key, stored), () -> { });
+        meters.recordPut(start);
+    }
+
+    /**
+     * Executa uma operação no Redis via circuit breaker, contando as falhas em cache.redis.errors
+     */
+    private <T> T callRemote(String operation, Supplier<T> call, Supplier<T> fallback) {
+        return manager.getCircuitBreaker().execute(() -> {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                meters.error(operation);
+                throw e;
+            }
+        }, fallback);
+    }
+
+    private void runRemote(String operation, Runnable call, Runnable fallback) {
+        callRemote(operation, () -> {
+            call.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        if (value != null) {
+            Object stored = wrap(value);
+            putRemote(key, stored);
+            putLocal(localKey(key), stored);
+        }
+        return value;
+    }
+
+    /**
+     * Recalcula em segundo plano uma entrada vencida pelo soft TTL.
+     * Uma tarefa por chave neste nó e, via lease, uma por cluster; se a fila estiver cheia,
+     * o valor antigo segue sendo servido e a próxima leitura tenta de novo.
+     */
+    private void scheduleRefresh(Object key, Callable<?> valueLoader) {
+        String refreshKey = name + "::" + localKey(key);
+        if (!refreshing.add(refreshKey)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                StampedeGuard guard = manager.getStampedeGuard();
+                String token = guard.tryLease(refreshKey);
+                try {
+                    if (token != null) {
+                        load(key, valueLoader);
+                        manager.publishEviction(name, localKey(key));
+                    }
+                } catch (Exception e) {
+                    log.error("Erro ao renovar cache [{}]: {}", refreshKey, e.getMessage());
+                } finally {
+                    guard.release(refreshKey, token);
+                    refreshing.remove(refreshKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(refreshKey);
+        }
+    }
+
+    private boolean isStale(StaleableValue staleable) {
+        return System.currentTimeMillis() - staleable.getComputedAt() >= softTtl.toMillis();
+    }
+
+    private Object wrap(Object value) {
+        if (softTtl == null || value == null) {
+            return value;
+        }
+        return new StaleableValue(value, System.currentTimeMillis());
+    }
+
+    private Object unwrap(ValueWrapper wrapper) {
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        return value instanceof StaleableValue staleable ? staleable.getValue() : value;
+    }
+
+    /**
+     * Executa leituras auxiliares (ex: janela anterior do dashboard) sem que a idade dos valores
+     * lidos apareça nos cabeçalhos X-Cache-Age/X-Cache-Stale da resposta
+     */
+    public static <T> T ignoringAge(Supplier<T> call) {
+        Boolean previous = AGE_IGNORED.get();
+        AGE_IGNORED.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                AGE_IGNORED.remove();
+            } else {
+                AGE_IGNORED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Informa a idade do valor na resposta HTTP corrente, se houver uma. Com vários valores na mesma
+     * resposta (ex: um por dia no dashboard) vale o mais antigo, e a resposta é stale se algum for.
+     */
+    private void exposeAge(StaleableValue staleable) {
+        if (AGE_IGNORED.get() != null
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)
+                || attributes.getResponse() == null) {
+            return;
+        }
+        long ageSeconds = (System.currentTimeMillis() - staleable.getComputedAt()) / 1000;
+        boolean stale = isStale(staleable);
+        if (attributes.getAttribute(AGE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Long previousAge) {
+            ageSeconds = Math.max(ageSeconds, previousAge);
+        }
+        stale |= Boolean.TRUE.equals(attributes.getAttribute(STALE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+
+        attributes.setAttribute(AGE_ATTRIBUTE, ageSeconds, RequestAttributes.SCOPE_REQUEST);
+        attributes.setAttribute(STALE_ATTRIBUTE, stale, RequestAttributes.SCOPE_REQUEST);
+        attributes.getResponse().setHeader(AGE_HEADER, String.valueOf(ageSeconds));
+        attributes.getResponse().setHeader(STALE_HEADER, String.valueOf(stale));
+    }
+
+    /**
+     * O RedisCache também converte as chaves para String, então 5L e "5" são a mesma entrada
+     */
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * Valor mutável guardado no L1 na forma serializada
+     */
+    private record LocalCopy(byte[] bytes) {
+    }
+}
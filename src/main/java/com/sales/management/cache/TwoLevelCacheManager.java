@@ -0,0 +1,178 @@
+package com.sales.management.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * CacheManager composto: L1 local por nó + L2 no Redis (RedisCacheManager).
+ * Mensagens no canal {@link #INVALIDATION_CHANNEL} têm o formato "nó|cache|chave"
+ * ("*" como chave limpa o cache inteiro).
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener, DisposableBean {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    private static final String SEPARATOR = "|";
+    private static final String ALL_KEYS = "*";
+
+    /**
+     * Limites do executor de renovação em segundo plano (stale-while-revalidate)
+     */
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_SIZE = 100;
+
+    private final CacheManager remote;
+    private final StringRedisTemplate publisher;
+    private final Map<String, LocalCacheSpec> localSpecs;
+    private final LocalCacheSpec defaultLocalSpec;
+    private final StampedeGuard stampedeGuard;
+    private final Map<String, Duration> softTtls;
+    private final CacheMetrics cacheMetrics;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisSerializer<Object> localSerializer;
+    private final ExecutorService refreshExecutor = newRefreshExecutor();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote, StringRedisTemplate publisher,
+                                Map<String, LocalCacheSpec> localSpecs, LocalCacheSpec defaultLocalSpec,
+                                StampedeGuard stampedeGuard, Map<String, Duration> softTtls,
+                                CacheMetrics cacheMetrics, RedisCircuitBreaker circuitBreaker,
+                                RedisSerializer<Object> localSerializer) {
+        this.remote = remote;
+        this.publisher = publisher;
+        this.localSpecs = localSpecs;
+        this.defaultLocalSpec = defaultLocalSpec;
+        this.stampedeGuard = stampedeGuard;
+        this.softTtls = softTtls;
+        this.cacheMetrics = cacheMetrics;
+        this.circuitBreaker = circuitBreaker;
+        this.localSerializer = localSerializer;
+        circuitBreaker.addRecoveryListener(() -> caches.values().forEach(TwoLevelCache::replayPendingEvictions));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        LocalCacheSpec spec = localSpecs.getOrDefault(name, defaultLocalSpec);
+        return new TwoLevelCache(name, remoteCache, Caffeine.newBuilder()
+                .maximumSize(spec.maxSize())
+                .expireAfterWrite(spec.ttl())
+                .build(), localSerializer, this, softTtls.get(name), refreshExecutor, cacheMetrics.forCache(name));
+    }
+
+    StampedeGuard getStampedeGuard() {
+        return stampedeGuard;
+    }
+
+    RedisCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Executa os comandos num pipeline (uma ida ao Redis para o lote inteiro)
+     */
+    void pipelined(Consumer<RedisConnection> commands) {
+        publisher.executePipelined((RedisCallback<Object>) connection -> {
+            commands.accept(connection);
+            return null;
+        });
+    }
+
+    void publishEviction(String cacheName, String key) {
+        publish(cacheName, key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(cacheName, ALL_KEYS);
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            // Com o circuito aberto a mensagem é descartada: as remoções são reaplicadas na recuperação
+            circuitBreaker.run(
+                    () -> publisher.convertAndSend(INVALIDATION_CHANNEL, nodeId + SEPARATOR + cacheName + SEPARATOR + key),
+                    () -> { });
+        } catch (Exception e) {
+            // O TTL curto do L1 limita a divergência se a mensagem se perder
+            log.error("Erro ao publicar invalidação [{}:{}]: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(parts[2])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(REFRESH_QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Limites do L1 de um cache: deve expirar antes do TTL do Redis
+     */
+    public record LocalCacheSpec(long maxSize, Duration ttl) {
+    }
+}
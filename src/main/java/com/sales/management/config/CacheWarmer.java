@@ -0,0 +1,152 @@
+package com.sales.management.config;
+
+import com.sales.management.model.entity.User;
+import com.sales.management.model.enums.UserRole;
+import com.sales.management.repository.UserRepository;
+import com.sales.management.service.CatalogService;
+import com.sales.management.service.ProductService;
+import com.sales.management.service.ReportService;
+import com.sales.management.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Aquece os caches depois do deploy, antes do banner de inicialização.
+ * Roda dentro do ApplicationReadyEvent: o Spring Boot só marca a aplicação como pronta
+ * (readiness ACCEPTING_TRAFFIC) depois que este listener retorna, ou seja, quando o
+ * warm-up termina ou estoura cache.warmup.timeout.
+ * <p>
+ * Escopos (cache.warmup.scope): dashboard, products, sellers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheWarmer {
+
+    private static final int WARMUP_THREADS = 4;
+
+    private final ReportService reportService;
+    private final ProductService productService;
+    private final CatalogService catalogService;
+    private final UserService userService;
+    private final UserRepository userRepository;
+
+    @Value("${cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.warmup.scope:dashboard,products,sellers}")
+    private Set<String> scope;
+
+    @Value("${cache.warmup.timeout:30}")
+    private long timeoutSeconds;
+
+    @Value("${cache.warmup.max-products:1000}")
+    private int maxProducts;
+
+    @Value("${cache.warmup.max-sellers:200}")
+    private int maxSellers;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(WARMUP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        if (scope.contains("dashboard")) {
+            for (LocalDateTime[] range : dashboardRanges(LocalDate.now())) {
+                tasks.add(run(executor, "dashboard " + range[0] + " - " + range[1],
+                        () -> reportService.getDashboardMetrics(range[0], range[1], null)));
+            }
+        }
+        if (scope.contains("products")) {
+            tasks.add(run(executor, "products", () -> {
+                int loaded = productService.warmUpCache(maxProducts);
+                log.debug("Warm-up: {} produtos carregados", loaded);
+            }));
+            tasks.add(run(executor, "categories", productService::getAllCategories));
+            tasks.add(run(executor, "catalog", () -> catalogService.getSnapshot(catalogService.getCatalogVersion())));
+        }
+        if (scope.contains("sellers")) {
+            tasks.add(run(executor, "sellers", () -> activeSellerIds().forEach(sellerId ->
+                    userService.getSellerStats(sellerId, null, null))));
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(timeoutSeconds, TimeUnit.SECONDS);
+            log.info("Warm-up de cache concluído em {} ms", System.currentTimeMillis() - start);
+        } catch (TimeoutException e) {
+            log.warn("Warm-up de cache excedeu {}s, seguindo com o cache parcial", timeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Falhas individuais já são registradas em run()
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Intervalos padrão do dashboard: hoje, semana corrente (a partir de segunda) e mês corrente.
+     * Clientes que usam exatamente esses limites recebem o valor pré-calculado.
+     */
+    static List<LocalDateTime[]> dashboardRanges(LocalDate today) {
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate monthStart = today.withDayOfMonth(1);
+        return List.of(
+                range(today, today),
+                range(weekStart, weekStart.plusDays(6)),
+                range(monthStart, today.with(TemporalAdjusters.lastDayOfMonth())));
+    }
+
+    private static LocalDateTime[] range(LocalDate first, LocalDate last) {
+        return new LocalDateTime[]{first.atStartOfDay(), last.atTime(LocalTime.MAX)};
+    }
+
+    private List<Long> activeSellerIds() {
+        return userRepository.findByRole(UserRole.SELLER, PageRequest.of(0, maxSellers)).stream()
+                .filter(user -> Boolean.TRUE.equals(user.getActive()))
+                .map(User::getId)
+                .toList();
+    }
+
+    private CompletableFuture<Void> run(ExecutorService executor, String name, Runnable task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warn("Warm-up de cache falhou [{}]: {}", name, e.getMessage());
+            }
+        }, executor);
+    }
+}
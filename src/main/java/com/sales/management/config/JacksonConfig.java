@@ -2,19 +2,55 @@ package com.sales.management.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.sales.management.model.dto.response.CustomerResponse;
+import com.sales.management.model.dto.response.ProductResponse;
+import com.sales.management.model.dto.response.SaleItemResponse;
+import com.sales.management.model.dto.response.SaleResponse;
+import com.sales.management.model.dto.response.UserResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 
 @Configuration
 public class JacksonConfig {
 
     @Bean
     public ObjectMapper objectMapper() {
-        return Jackson2ObjectMapperBuilder.json()
-                .modules(new JavaTimeModule())
+        return configure(Jackson2ObjectMapperBuilder.json()).build();
+    }
+
+    /**
+     * application/x-jackson-smile: mesmos DTOs e configurações do JSON, em binário
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.smile()).build());
+    }
+
+    /**
+     * application/cbor: mesmos DTOs e configurações do JSON, em binário
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.cbor()).build());
+    }
+
+    private Jackson2ObjectMapperBuilder configure(Jackson2ObjectMapperBuilder builder) {
+        return builder
+                .modules(new JavaTimeModule(), new BlackbirdModule())
                 .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
-                .build();
+                // ?fields= (SparseFieldsResponseAdvice); sem o parâmetro tudo é serializado
+                .mixIn(ProductResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(CustomerResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(UserResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(SaleResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(SaleItemResponse.class, SparseFieldsFilter.Mixin.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
     }
-}
\ No newline at end of file
+}
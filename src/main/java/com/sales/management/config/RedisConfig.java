@@ -5,27 +5,46 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sales.management.cache.CacheMetrics;
+import com.sales.management.cache.CompactRedisSerializer;
+import com.sales.management.cache.RedisCircuitBreaker;
+import com.sales.management.cache.StaleableValue;
+import com.sales.management.cache.StampedeGuard;
+import com.sales.management.cache.TwoLevelCacheManager;
+import com.sales.management.cache.TwoLevelCacheManager.LocalCacheSpec;
+import com.sales.management.service.DashboardPartialService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
-@EnableCaching
+// Interceptor de cache por fora do transacional: hits não abrem transação, evicts ocorrem após o commit
+// e a renovação em segundo plano (stale-while-revalidate) roda dentro da transação do método
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 public class RedisConfig {
 
     @Value("${spring.data.redis.host}")
@@ -37,9 +56,21 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    @Value("${spring.data.redis.timeout:2000ms}")
+    private Duration redisTimeout;
+
     @Value("${cache.default-ttl:300}")
     private long defaultTtl;
 
+    @Value("${cache.local.enabled:true}")
+    private boolean localCacheEnabled;
+
+    @Value("${cache.serializer:compact}")
+    private String cacheSerializer;
+
+    @Value("${cache.compression-threshold:1024}")
+    private int compressionThreshold;
+
     /**
      * Configuração da conexão com Redis
      */
@@ -53,28 +84,34 @@ public class RedisConfig {
             config.setPassword(redisPassword);
         }
 
-        return new LettuceConnectionFactory(config);
+        // Sem isso o Lettuce usa o timeout padrão de 60s e ignora spring.data.redis.timeout
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(redisTimeout)
+                .build();
+
+        return new LettuceConnectionFactory(config, clientConfig);
     }
 
     /**
      * RedisTemplate customizado para operações manuais
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       CacheMetrics cacheMetrics) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
         // Serializers
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper());
+        RedisSerializer<Object> valueSerializer = cacheMetrics.metered("cacheService", cacheValueSerializer());
 
         // Chave como String
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
 
-        // Valor como JSON
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        // Valor no formato configurado em cache.serializer
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
         return template;
@@ -84,29 +121,118 @@ public class RedisConfig {
      * CacheManager para @Cacheable annotations
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, StampedeGuard stampedeGuard,
+                                     CacheMetrics cacheMetrics, RedisCircuitBreaker circuitBreaker) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofSeconds(defaultTtl)) // TTL padrão
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
                 )
-                .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(
-                                new GenericJackson2JsonRedisSerializer(objectMapper())
-                        )
-                )
+                .serializeValuesWith(valuesWith(cacheMetrics, "default"))
                 .disableCachingNullValues(); // Não cacheia valores null
 
         Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
-        cacheConfigs.put("products", config.entryTtl(Duration.ofMinutes(5)));
-        cacheConfigs.put("customers", config.entryTtl(Duration.ofMinutes(10)));
-        cacheConfigs.put("dashboard", config.entryTtl(Duration.ofMinutes(2)));
-        cacheConfigs.put("sellerStats", config.entryTtl(Duration.ofMinutes(2)));
-
-        return RedisCacheManager.builder(connectionFactory)
+        cacheConfigs.put("products", cacheConfig(config, cacheMetrics, "products", Duration.ofMinutes(5)));
+        cacheConfigs.put("customers", cacheConfig(config, cacheMetrics, "customers", Duration.ofMinutes(10)));
+        // dashboardDays e sellerStats: TTL do Redis é o hard TTL; o soft TTL fica em softTtls abaixo.
+        // Dias passados só mudam por escrita em vendas (que remove o dia), então ficam mais tempo
+        cacheConfigs.put(DashboardPartialService.CACHE_NAME, config
+                .entryTtl(this::dashboardDayTtl)
+                .serializeValuesWith(valuesWith(cacheMetrics, DashboardPartialService.CACHE_NAME)));
+        cacheConfigs.put("sellerStats", cacheConfig(config, cacheMetrics, "sellerStats", Duration.ofMinutes(10)));
+        // Uma entrada por versão do catálogo: versões antigas só expiram
+        cacheConfigs.put("catalog", cacheConfig(config, cacheMetrics, "catalog", Duration.ofMinutes(30)));
+
+        // allEntries = true usa SCAN em lotes (o padrão do RedisCacheWriter é KEYS, que bloqueia o Redis)
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+                connectionFactory, BatchStrategies.scan(500));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(config)
                 .withInitialCacheConfigurations(cacheConfigs)
                 .build();
+
+        // Não é registrado como bean, então inicializa os caches configurados aqui
+        redisCacheManager.afterPropertiesSet();
+
+        // L1 local por nó: TTL menor que o do Redis para limitar divergência se uma invalidação se perder
+        // (tamanho 0 com cache.local.enabled=false: tudo vai direto ao Redis)
+        Map<String, LocalCacheSpec> localSpecs = new HashMap<>();
+        localSpecs.put("products", localSpec(10_000, Duration.ofMinutes(1)));
+        localSpecs.put("customers", localSpec(5_000, Duration.ofMinutes(1)));
+        localSpecs.put(DashboardPartialService.CACHE_NAME, localSpec(5_000, Duration.ofSeconds(30)));
+        localSpecs.put("sellerStats", localSpec(1_000, Duration.ofSeconds(30)));
+        localSpecs.put("catalog", localSpec(2, Duration.ofMinutes(1)));
+
+        // Stale-while-revalidate: após o soft TTL o valor antigo é servido enquanto é recalculado em background
+        Map<String, Duration> softTtls = new HashMap<>();
+        softTtls.put(DashboardPartialService.CACHE_NAME, Duration.ofMinutes(2));
+        softTtls.put("sellerStats", Duration.ofMinutes(2));
+
+        return new TwoLevelCacheManager(
+                redisCacheManager,
+                new StringRedisTemplate(connectionFactory),
+                localSpecs,
+                localSpec(1_000, Duration.ofSeconds(30)),
+                stampedeGuard,
+                softTtls,
+                cacheMetrics,
+                circuitBreaker,
+                // Cópias do L1: sem compressão, só para isolar os valores entre as threads do nó
+                new CompactRedisSerializer(Integer.MAX_VALUE));
+    }
+
+    /**
+     * TTL de um agregado diário do dashboard: 24h para dias passados, 10 min para hoje
+     */
+    private Duration dashboardDayTtl(Object key, Object value) {
+        Object partial = value instanceof StaleableValue staleable ? staleable.getValue() : value;
+        if (partial instanceof DashboardPartialService.Partial day
+                && day.getDate() != null && day.getDate().isBefore(LocalDate.now())) {
+            return Duration.ofHours(24);
+        }
+        return Duration.ofMinutes(10);
+    }
+
+    /**
+     * Configuração de um cache com serializador próprio, para medir o tamanho dos valores por cache
+     */
+    private RedisCacheConfiguration cacheConfig(RedisCacheConfiguration base, CacheMetrics cacheMetrics,
+                                                String cacheName, Duration ttl) {
+        return base.entryTtl(ttl).serializeValuesWith(valuesWith(cacheMetrics, cacheName));
+    }
+
+    private RedisSerializationContext.SerializationPair<Object> valuesWith(CacheMetrics cacheMetrics, String cacheName) {
+        return RedisSerializationContext.SerializationPair.fromSerializer(
+                cacheMetrics.metered(cacheName, cacheValueSerializer()));
+    }
+
+    private LocalCacheSpec localSpec(long maxSize, Duration ttl) {
+        return new LocalCacheSpec(localCacheEnabled ? maxSize : 0, ttl);
+    }
+
+    /**
+     * Recebe as invalidações publicadas pelos outros nós e descarta o L1 local
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory, CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            container.addMessageListener(twoLevelCacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        }
+        return container;
+    }
+
+    /**
+     * Serializador dos valores: "compact" (Smile + compressão + versão do formato) ou "json"
+     */
+    private RedisSerializer<Object> cacheValueSerializer() {
+        if ("json".equalsIgnoreCase(cacheSerializer)) {
+            return new GenericJackson2JsonRedisSerializer(objectMapper());
+        }
+        return new CompactRedisSerializer(compressionThreshold);
     }
 
     /**
@@ -0,0 +1,81 @@
+package com.sales.management.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Filtro Jackson do parâmetro ?fields=id,name,items.product.name.
+ * Um campo é serializado se foi pedido, se é ancestral de um caminho pedido
+ * (items, items.product) ou se está dentro de um objeto pedido por inteiro.
+ */
+public class SparseFieldsFilter extends SimpleBeanPropertyFilter {
+
+    public static final String ID = "sparseFields";
+
+    private final Set<String> fields;
+    private final String rootPrefix;
+
+    /**
+     * @param fields     caminhos separados por vírgula
+     * @param rootPrefix propriedade que embrulha os DTOs (ex: "content" de um Page) ou null
+     */
+    public SparseFieldsFilter(String fields, String rootPrefix) {
+        this.fields = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+        this.rootPrefix = rootPrefix;
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator jgen, SerializerProvider provider,
+                                 PropertyWriter writer) throws Exception {
+        if (isRequested(currentPath(jgen, writer.getName()))) {
+            writer.serializeAsField(pojo, jgen, provider);
+        } else if (!jgen.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, jgen, provider);
+        }
+    }
+
+    private boolean isRequested(String path) {
+        for (String field : fields) {
+            if (field.equals(path) || field.startsWith(path + ".") || path.startsWith(field + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String currentPath(JsonGenerator jgen, String property) {
+        StringBuilder path = new StringBuilder(property);
+        // O contexto atual é o objeto sendo escrito; os pais dão os nomes dos campos que o contêm
+        JsonStreamContext context = jgen.getOutputContext().getParent();
+        while (context != null && !context.inRoot()) {
+            if (context.inObject() && context.getCurrentName() != null) {
+                path.insert(0, context.getCurrentName() + ".");
+            }
+            context = context.getParent();
+        }
+        String resolved = path.toString();
+        if (rootPrefix != null && resolved.startsWith(rootPrefix + ".")) {
+            return resolved.substring(rootPrefix.length() + 1);
+        }
+        return resolved;
+    }
+
+    /**
+     * Mix-in que liga os DTOs de resposta ao filtro sem anotar as classes
+     * (o ObjectMapper do Redis continua serializando tudo)
+     */
+    @JsonFilter(ID)
+    public interface Mixin {
+    }
+}
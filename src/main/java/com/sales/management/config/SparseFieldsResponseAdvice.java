@@ -0,0 +1,47 @@
+package com.sales.management.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.sales.management.controller.CustomerController;
+import com.sales.management.controller.ProductController;
+import com.sales.management.controller.SaleController;
+import com.sales.management.controller.UserController;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Aplica ?fields= nas respostas de produtos, clientes, usuários e vendas
+ */
+@RestControllerAdvice(assignableTypes = {
+        ProductController.class,
+        CustomerController.class,
+        UserController.class,
+        SaleController.class
+})
+public class SparseFieldsResponseAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    public static final String FIELDS_PARAM = "fields";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String fields = servletRequest.getServletRequest().getParameter(FIELDS_PARAM);
+        if (fields == null || fields.isBlank()) {
+            return;
+        }
+
+        String rootPrefix = bodyContainer.getValue() instanceof Page<?> ? "content" : null;
+        bodyContainer.setFilters(new SimpleFilterProvider()
+                .addFilter(SparseFieldsFilter.ID, new SparseFieldsFilter(fields, rootPrefix)));
+    }
+}
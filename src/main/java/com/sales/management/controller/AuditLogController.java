@@ -1,19 +1,33 @@
 package com.sales.management.controller;
 
-import com.sales.management.model.entity.AuditLog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sales.management.model.dto.response.AuditLogResponse;
+import com.sales.management.model.dto.response.AuditStatsResponse;
+import com.sales.management.model.dto.response.AuditTrailResponse;
+import com.sales.management.repository.AuditLogFilter;
+import com.sales.management.service.AuditLogExportService;
 import com.sales.management.service.AuditLogService;
+import com.sales.management.service.AuditStatsService;
+import com.sales.management.util.EncodingUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/audit-logs")
@@ -22,28 +36,59 @@ import java.util.List;
 public class AuditLogController {
 
     private final AuditLogService auditLogService;
+    private final AuditLogExportService auditLogExportService;
+    private final AuditStatsService auditStatsService;
+
+    @Value("${audit.export.timeout:30m}")
+    private Duration exportTimeout;
+
+    /**
+     * Get a single audit log with full old/new values (list endpoints only return previews)
+     * GET /api/audit-logs/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<AuditLogResponse> getAuditLog(@PathVariable Long id) {
+        return ResponseEntity.ok(auditLogService.getAuditLogDetail(id));
+    }
 
     /**
-     * Get audit trail for a specific entity
-     * GET /api/audit-logs/entity/{entityType}/{entityId}
+     * Get audit trail for a specific entity, newest first, paged by cursor (limit up to 200, default 50).
+     * Entries come without old/new values; expand one with GET /api/audit-logs/{id}
+     * GET /api/audit-logs/entity/{entityType}/{entityId}?limit=50&cursor={nextCursor}
      */
     @GetMapping("/entity/{entityType}/{entityId}")
-    public ResponseEntity<List<AuditLog>> getEntityAuditTrail(
+    public ResponseEntity<AuditTrailResponse> getEntityAuditTrail(
             @PathVariable String entityType,
-            @PathVariable Long entityId) {
-        List<AuditLog> auditTrail = auditLogService.getEntityAuditTrail(entityType, entityId);
+            @PathVariable Long entityId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        AuditTrailResponse auditTrail = auditLogService.getEntityAuditTrail(entityType, entityId, cursor, limit);
         return ResponseEntity.ok(auditTrail);
     }
 
+    /**
+     * Rebuild an entity state from its recorded changes (current state, or as of the given moment)
+     * GET /api/audit-logs/entity/{entityType}/{entityId}/state?at=2024-01-31T23:59:59
+     */
+    @GetMapping("/entity/{entityType}/{entityId}/state")
+    public ResponseEntity<JsonNode> getEntityState(
+            @PathVariable String entityType,
+            @PathVariable Long entityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(auditLogService.reconstructState(entityType, entityId, at));
+    }
+
     /**
      * Search audit logs by entity type
      * GET /api/audit-logs/search/entity?entityType=SALE
      */
     @GetMapping("/search/entity")
-    public ResponseEntity<Page<AuditLog>> searchByEntityType(
+    public ResponseEntity<Page<AuditLogResponse>> searchByEntityType(
             @RequestParam String entityType,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByEntityType(entityType, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .entityType(entityType)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -52,11 +97,14 @@ public class AuditLogController {
      * GET /api/audit-logs/search/entity?entityType=SALE&entityId=123
      */
     @GetMapping("/search/entity-details")
-    public ResponseEntity<Page<AuditLog>> searchByEntityTypeAndId(
+    public ResponseEntity<Page<AuditLogResponse>> searchByEntityTypeAndId(
             @RequestParam String entityType,
             @RequestParam Long entityId,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByEntityTypeAndEntityId(entityType, entityId, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -65,10 +113,12 @@ public class AuditLogController {
      * GET /api/audit-logs/search/action?action=CREATE
      */
     @GetMapping("/search/action")
-    public ResponseEntity<Page<AuditLog>> searchByAction(
+    public ResponseEntity<Page<AuditLogResponse>> searchByAction(
             @RequestParam String action,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByAction(action, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .action(action)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -77,10 +127,12 @@ public class AuditLogController {
      * GET /api/audit-logs/search/user?userId=1
      */
     @GetMapping("/search/user")
-    public ResponseEntity<Page<AuditLog>> searchByUser(
+    public ResponseEntity<Page<AuditLogResponse>> searchByUser(
             @RequestParam Long userId,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByUser(userId, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .userId(userId)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -89,11 +141,14 @@ public class AuditLogController {
      * GET /api/audit-logs/search/user-action?userId=1&action=CREATE
      */
     @GetMapping("/search/user-action")
-    public ResponseEntity<Page<AuditLog>> searchByUserAndAction(
+    public ResponseEntity<Page<AuditLogResponse>> searchByUserAndAction(
             @RequestParam Long userId,
             @RequestParam String action,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByUserAndAction(userId, action, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .userId(userId)
+                .action(action)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -102,11 +157,14 @@ public class AuditLogController {
      * GET /api/audit-logs/search/time-period?startDate=2024-01-01T00:00:00&endDate=2024-01-31T23:59:59
      */
     @GetMapping("/search/time-period")
-    public ResponseEntity<Page<AuditLog>> searchByTimePeriod(
+    public ResponseEntity<Page<AuditLogResponse>> searchByTimePeriod(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByTimePeriod(startDate, endDate, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -115,12 +173,16 @@ public class AuditLogController {
      * GET /api/audit-logs/search/entity-time?entityType=SALE&startDate=2024-01-01T00:00:00&endDate=2024-01-31T23:59:59
      */
     @GetMapping("/search/entity-time")
-    public ResponseEntity<Page<AuditLog>> searchByEntityTypeAndTimePeriod(
+    public ResponseEntity<Page<AuditLogResponse>> searchByEntityTypeAndTimePeriod(
             @RequestParam String entityType,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByEntityTypeAndTimePeriod(entityType, startDate, endDate, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .entityType(entityType)
+                .startDate(startDate)
+                .endDate(endDate)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -129,12 +191,16 @@ public class AuditLogController {
      * GET /api/audit-logs/search/user-time?userId=1&startDate=2024-01-01T00:00:00&endDate=2024-01-31T23:59:59
      */
     @GetMapping("/search/user-time")
-    public ResponseEntity<Page<AuditLog>> searchByUserAndTimePeriod(
+    public ResponseEntity<Page<AuditLogResponse>> searchByUserAndTimePeriod(
             @RequestParam Long userId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByUserAndTimePeriod(userId, startDate, endDate, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .userId(userId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
@@ -143,29 +209,122 @@ public class AuditLogController {
      * GET /api/audit-logs/search/action-time?action=CREATE&startDate=2024-01-01T00:00:00&endDate=2024-01-31T23:59:59
      */
     @GetMapping("/search/action-time")
-    public ResponseEntity<Page<AuditLog>> searchByActionAndTimePeriod(
+    public ResponseEntity<Page<AuditLogResponse>> searchByActionAndTimePeriod(
             @RequestParam String action,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.findByActionAndTimePeriod(action, startDate, endDate, pageable);
+        Page<AuditLogResponse> logs = auditLogService.search(AuditLogFilter.builder()
+                .action(action)
+                .startDate(startDate)
+                .endDate(endDate)
+                .build(), pageable);
+        return ResponseEntity.ok(logs);
+    }
+
+    /**
+     * Search by JSON content (GIN-indexed). contains is a JSON document matched by containment,
+     * jsonPath a JSONPath predicate (a plain path such as $.customerId matches nothing); field limits the search to OLD_VALUE, NEW_VALUE or CHANGES.
+     * Sales whose finalAmount was changed: GET /api/audit-logs/search/content?field=CHANGES&contains=[{"path":"/finalAmount"}]
+     * Sales created for a customer: GET /api/audit-logs/search/content?field=CHANGES&contains=[{"path":"/customerId","value":42}]
+     * Legacy snapshots by value: GET /api/audit-logs/search/content?field=NEW_VALUE&jsonPath=$.customerId == 42
+     */
+    @GetMapping("/search/content")
+    public ResponseEntity<Page<AuditLogResponse>> searchByContent(
+            @RequestParam(required = false) String contains,
+            @RequestParam(required = false) String jsonPath,
+            @RequestParam(required = false) AuditLogFilter.ContentField field,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
+        Page<AuditLogResponse> logs = auditLogService.searchContent(AuditLogFilter.builder()
+                .contains(contains)
+                .jsonPath(jsonPath)
+                .contentField(field)
+                .entityType(entityType)
+                .action(action)
+                .startDate(startDate)
+                .endDate(endDate)
+                .build(), pageable);
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * Export audit logs as NDJSON (gzip when accepted), with the same filters as the advanced search.
+     * Records are ordered by id: to resume an interrupted download pass the last received id as afterId.
+     * GET /api/audit-logs/export?entityType=SALE&startDate=2024-01-01T00:00:00&endDate=2024-03-31T23:59:59&afterId=1500
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request) {
+        // Timeout só desta requisição: o StreamingResponseBody inicia o processamento assíncrono
+        // com o timeout já definido na requisição, sem alterar o padrão das demais
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+
+        AuditLogFilter filter = AuditLogFilter.builder()
+                .entityType(entityType)
+                .action(action)
+                .userId(userId)
+                .startDate(startDate != null ? startDate : LocalDateTime.now().minusMonths(1))
+                .endDate(endDate != null ? endDate : LocalDateTime.now())
+                .build();
+        boolean gzip = EncodingUtil.acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192, true)) {
+                    auditLogExportService.export(filter, afterId, gzipOut);
+                }
+            } else {
+                auditLogExportService.export(filter, afterId, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audit-logs.ndjson\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Audit activity counts grouped by time bucket (hour or day), action, entity type and user
+     * GET /api/audit-logs/stats?startDate=2024-01-01T00:00:00&endDate=2024-01-31T23:59:59&bucket=day
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<AuditStatsResponse> getStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "day") String bucket) {
+        return ResponseEntity.ok(auditStatsService.getStats(startDate, endDate, bucket));
+    }
+
     /**
      * Complex search with multiple criteria
      * GET /api/audit-logs/search/advanced?entityType=SALE&action=CREATE&userId=1&startDate=2024-01-01T00:00:00&endDate=2024-01-31T23:59:59
      * All parameters except dates are optional
      */
     @GetMapping("/search/advanced")
-    public ResponseEntity<Page<AuditLog>> advancedSearch(
+    public ResponseEntity<Page<AuditLogResponse>> advancedSearch(
             @RequestParam(required = false) String entityType,
             @RequestParam(required = false) String action,
             @RequestParam(required = false) Long userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @PageableDefault(size = 20, sort = "timestamp", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<AuditLog> logs = auditLogService.searchAuditLogs(entityType, action, userId, startDate, endDate, pageable);
+        Page<AuditLogResponse> logs = auditLogService.searchAuditLogs(entityType, action, userId, startDate, endDate, pageable);
         return ResponseEntity.ok(logs);
     }
 }
@@ -3,7 +3,9 @@ package com.sales.management.controller;
 import com.sales.management.model.dto.request.CreateCustomerRequest;
 import com.sales.management.model.dto.request.UpdateCustomerRequest;
 import com.sales.management.model.dto.response.CustomerResponse;
+import com.sales.management.repository.VersionStamp;
 import com.sales.management.service.CustomerService;
+import com.sales.management.util.ETagUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -17,6 +19,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/customers")
@@ -41,8 +46,17 @@ public class CustomerController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction
+            @RequestParam(defaultValue = "ASC") String direction,
+            WebRequest webRequest
     ) {
+        // O total entra no ETag porque exclusões de clientes são físicas e não mexem no MAX(updatedAt)
+        VersionStamp version = customerService.getCustomersVersion();
+        String eTag = ETagUtil.weak(webRequest, "customers", page, size, sortBy, direction,
+                version.getCount(), version.getLastModified());
+        if (webRequest.checkNotModified(eTag, ETagUtil.lastModified(version.getLastModified()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         return ResponseEntity.ok(customerService.getAllCustomers(pageable));
@@ -51,7 +65,12 @@ public class CustomerController {
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'SELLER')")
     @Operation(summary = "Buscar cliente por ID (Admin e Seller)")
-    public ResponseEntity<CustomerResponse> getCustomerById(@PathVariable Long id) {
+    public ResponseEntity<CustomerResponse> getCustomerById(@PathVariable Long id, WebRequest webRequest) {
+        LocalDateTime version = customerService.getCustomerVersion(id);
+        if (version != null
+                && webRequest.checkNotModified(ETagUtil.weak(webRequest, "customer", id, version), ETagUtil.lastModified(version))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         return ResponseEntity.ok(customerService.getCustomerById(id));
     }
 
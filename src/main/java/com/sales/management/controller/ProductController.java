@@ -3,7 +3,11 @@ package com.sales.management.controller;
 import com.sales.management.model.dto.request.CreateProductRequest;
 import com.sales.management.model.dto.request.UpdateProductRequest;
 import com.sales.management.model.dto.response.ProductResponse;
+import com.sales.management.repository.VersionStamp;
+import com.sales.management.service.CatalogService;
 import com.sales.management.service.ProductService;
+import com.sales.management.util.ETagUtil;
+import com.sales.management.util.EncodingUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,11 +17,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -28,6 +36,7 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogService catalogService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -42,16 +51,59 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction
+            @RequestParam(defaultValue = "ASC") String direction,
+            WebRequest webRequest
     ) {
+        VersionStamp version = productService.getProductsVersion();
+        String eTag = ETagUtil.weak(webRequest, "products", page, size, sortBy, direction,
+                version.getCount(), version.getLastModified());
+        if (webRequest.checkNotModified(eTag, ETagUtil.lastModified(version.getLastModified()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         return ResponseEntity.ok(productService.getAllProducts(pageable));
     }
 
+    @GetMapping("/sync")
+    @Operation(summary = "Sincronizar catálogo: completo sem 'since' ou só as alterações desde a versão informada")
+    public ResponseEntity<?> syncCatalog(@RequestParam(required = false) Long since, WebRequest webRequest) {
+        long version = catalogService.getCatalogVersion();
+        boolean changes = since != null && since > 0 && since <= version;
+        // O snapshot completo é sempre JSON (bytes prontos no cache), qualquer que seja o Accept, então o ETag
+        // dele não leva o formato; as alterações desde uma versão seguem a negociação (JSON, Smile ou CBOR)
+        String eTag = changes
+                ? ETagUtil.weak(webRequest, "catalog", since, version)
+                : ETagUtil.weak("catalog", since, version);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        if (changes) {
+            return ResponseEntity.ok(catalogService.getChangesSince(since, version));
+        }
+
+        // Snapshot completo: enviado já comprimido, como está no cache
+        CatalogService.Snapshot snapshot = catalogService.getSnapshot(version);
+        boolean gzip = EncodingUtil.acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzippedJson());
+        }
+        return response.body(snapshot.json());
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Buscar produto por ID")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        LocalDateTime version = productService.getProductVersion(id);
+        if (version != null
+                && webRequest.checkNotModified(ETagUtil.weak(webRequest, "product", id, version), ETagUtil.lastModified(version))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
@@ -4,6 +4,7 @@ import com.sales.management.model.dto.request.CreateSaleRequest;
 import com.sales.management.model.dto.request.UpdateSaleRequest;
 import com.sales.management.model.dto.response.SaleResponse;
 import com.sales.management.service.SaleService;
+import com.sales.management.util.ETagUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,6 +19,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -60,7 +62,12 @@ public class SaleController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Buscar venda por ID")
-    public ResponseEntity<SaleResponse> getSaleById(@PathVariable Long id) {
+    public ResponseEntity<SaleResponse> getSaleById(@PathVariable Long id, WebRequest webRequest) {
+        LocalDateTime version = saleService.getSaleVersion(id);
+        if (version != null
+                && webRequest.checkNotModified(ETagUtil.weak(webRequest, "sale", id, version), ETagUtil.lastModified(version))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         return ResponseEntity.ok(saleService.getSaleById(id));
     }
 
@@ -8,7 +8,9 @@ import com.sales.management.model.dto.response.SellerStatsResponse;
 import com.sales.management.model.dto.response.UserResponse;
 import com.sales.management.model.entity.User;
 import com.sales.management.model.enums.UserRole;
+import com.sales.management.repository.VersionStamp;
 import com.sales.management.service.UserService;
+import com.sales.management.util.ETagUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,6 +26,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 
@@ -50,8 +53,16 @@ public class UserController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String direction
+            @RequestParam(defaultValue = "DESC") String direction,
+            WebRequest webRequest
     ) {
+        VersionStamp version = userService.getUsersVersion();
+        String eTag = ETagUtil.weak(webRequest, "users", page, size, sortBy, direction,
+                version.getCount(), version.getLastModified());
+        if (webRequest.checkNotModified(eTag, ETagUtil.lastModified(version.getLastModified()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         return ResponseEntity.ok(userService.getAllUsers(pageable));
@@ -94,7 +105,12 @@ public class UserController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Buscar usuário por ID")
-    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        LocalDateTime version = userService.getUserVersion(id);
+        if (version != null
+                && webRequest.checkNotModified(ETagUtil.weak(webRequest, "user", id, version), ETagUtil.lastModified(version))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         return ResponseEntity.ok(userService.getUserById(id));
     }
 
@@ -0,0 +1,33 @@
+package com.sales.management.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nas listagens oldValue/newValue trazem apenas uma prévia (AuditLogRepository.PREVIEW_LENGTH);
+ * o conteúdo completo vem de GET /audit-logs/{id}. O mesmo vale para changes, que só é preenchido no detalhe.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogResponse {
+    private Long id;
+    private String entityType;
+    private Long entityId;
+    private String action;
+    private String oldValue;
+    private String newValue;
+    @JsonRawValue
+    private String changes;
+    private Long userId;
+    private String userName;
+    private String ipAddress;
+    private String userAgent;
+    private LocalDateTime timestamp;
+}
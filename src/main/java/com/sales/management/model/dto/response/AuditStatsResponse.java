@@ -0,0 +1,41 @@
+package com.sales.management.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditStatsResponse {
+    /**
+     * hour ou day
+     */
+    private String bucket;
+    /**
+     * Intervalo coberto, alinhado aos buckets (fim exclusivo)
+     */
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private Long total;
+
+    private List<BucketCountDTO> counts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BucketCountDTO {
+        private LocalDateTime bucketStart;
+        private String action;
+        private String entityType;
+        private Long userId;
+        private String userName;
+        private Long count;
+    }
+}
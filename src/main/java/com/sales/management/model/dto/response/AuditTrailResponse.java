@@ -0,0 +1,23 @@
+package com.sales.management.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditTrailResponse {
+    /**
+     * Registros do mais recente para o mais antigo, sem oldValue/newValue/changes (ver GET /audit-logs/{id})
+     */
+    private List<AuditLogResponse> entries;
+    /**
+     * Valor de "cursor" para a próxima página; null quando não há registros mais antigos
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.sales.management.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSyncResponse {
+    /**
+     * Versão do catálogo a ser enviada como "since" na próxima sincronização
+     */
+    private Long version;
+    /**
+     * true: products é o catálogo ativo completo; false: só as alterações desde "since"
+     */
+    private Boolean full;
+    private List<ProductResponse> products;
+    private List<Long> deletedIds;
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
@@ -29,12 +31,24 @@ public class AuditLog {
     @Column(nullable = false, length = 20)
     private String action; // CREATE, UPDATE, DELETE
 
-    @Column(name = "old_value", columnDefinition = "TEXT")
+    /**
+     * old_value/new_value: registros anteriores ao JSON Patch (valores que não eram JSON viraram strings JSON)
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "old_value", columnDefinition = "jsonb")
     private String oldValue;
 
-    @Column(name = "new_value", columnDefinition = "TEXT")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "new_value", columnDefinition = "jsonb")
     private String newValue;
 
+    /**
+     * JSON Patch (RFC 6902) do estado anterior para o novo; no CREATE parte de um objeto vazio
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private String changes;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
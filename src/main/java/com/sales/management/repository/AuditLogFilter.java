@@ -0,0 +1,50 @@
+package com.sales.management.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros da busca de auditoria. Campos null não geram predicado na consulta.
+ */
+@Getter
+@Builder
+public class AuditLogFilter {
+    private final String entityType;
+    private final Long entityId;
+    private final String action;
+    private final Long userId;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+
+    /**
+     * Busca por conteúdo (searchContent): documento JSON para containment (@>)
+     */
+    private final String contains;
+    /**
+     * Busca por conteúdo (searchContent): predicado JSONPath (@@), ex: $.customerId == 42.
+     * Precisa ser um predicado: um caminho simples ($.customerId) não retorna booleano e não encontra nada
+     */
+    private final String jsonPath;
+    /**
+     * Coluna pesquisada pela busca por conteúdo; null = old_value, new_value e changes
+     */
+    private final ContentField contentField;
+
+    public enum ContentField {
+        OLD_VALUE("old_value"),
+        NEW_VALUE("new_value"),
+        CHANGES("changes");
+
+        private final String column;
+
+        ContentField(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+    }
+}
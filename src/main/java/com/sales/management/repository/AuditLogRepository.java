@@ -1,8 +1,8 @@
 package com.sales.management.repository;
 
+import com.sales.management.model.dto.response.AuditLogResponse;
 import com.sales.management.model.entity.AuditLog;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,99 +10,72 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, AuditLogRepositoryCustom {
 
     /**
-     * Search audit logs by entity type
+     * Tamanho da prévia de old_value/new_value nas buscas
      */
-    Page<AuditLog> findByEntityType(String entityType, Pageable pageable);
+    int PREVIEW_LENGTH = 200;
 
     /**
-     * Search audit logs by entity type and entity ID
+     * Projeção do histórico de uma entidade: usuário via join (sem proxy lazy por linha) e sem os valores,
+     * que são carregados só ao abrir um registro (findDetailById)
      */
-    Page<AuditLog> findByEntityTypeAndEntityId(String entityType, Long entityId, Pageable pageable);
+    String TRAIL_SELECT = "SELECT new com.sales.management.model.dto.response.AuditLogResponse(" +
+            "a.id, a.entityType, a.entityId, a.action, " +
+            "CAST(NULL AS String), CAST(NULL AS String), CAST(NULL AS String), " +
+            "u.id, u.name, a.ipAddress, a.userAgent, a.timestamp) " +
+            "FROM AuditLog a JOIN a.user u " +
+            "WHERE a.entityType = :entityType AND a.entityId = :entityId ";
 
-    /**
-     * Search audit logs by action type
-     */
-    Page<AuditLog> findByAction(String action, Pageable pageable);
-
-    /**
-     * Search audit logs by user ID
-     */
-    Page<AuditLog> findByUserId(Long userId, Pageable pageable);
-
-    /**
-     * Search audit logs by user ID and action
-     */
-    Page<AuditLog> findByUserIdAndAction(Long userId, String action, Pageable pageable);
+    String TRAIL_ORDER = "ORDER BY a.timestamp DESC, a.id DESC";
 
     /**
-     * Search audit logs by time period
+     * Primeira página do histórico de uma entidade, do mais recente para o mais antigo
      */
-    @Query("SELECT a FROM AuditLog a WHERE a.timestamp BETWEEN :startDate AND :endDate ORDER BY a.timestamp DESC")
-    Page<AuditLog> findByTimestampBetween(
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            Pageable pageable);
-
-    /**
-     * Search audit logs by entity type and time period
-     */
-    @Query("SELECT a FROM AuditLog a WHERE a.entityType = :entityType " +
-           "AND a.timestamp BETWEEN :startDate AND :endDate ORDER BY a.timestamp DESC")
-    Page<AuditLog> findByEntityTypeAndTimestampBetween(
+    @Query(TRAIL_SELECT + TRAIL_ORDER)
+    List<AuditLogResponse> findEntityAuditTrail(
             @Param("entityType") String entityType,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            Pageable pageable);
-
-    /**
-     * Search audit logs by user and time period
-     */
-    @Query("SELECT a FROM AuditLog a WHERE a.user.id = :userId " +
-           "AND a.timestamp BETWEEN :startDate AND :endDate ORDER BY a.timestamp DESC")
-    Page<AuditLog> findByUserIdAndTimestampBetween(
-            @Param("userId") Long userId,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            Pageable pageable);
+            @Param("entityId") Long entityId,
+            Limit limit);
 
     /**
-     * Search audit logs by action and time period
+     * Páginas seguintes: registros anteriores ao último da página (timestamp, id) já entregue
      */
-    @Query("SELECT a FROM AuditLog a WHERE a.action = :action " +
-           "AND a.timestamp BETWEEN :startDate AND :endDate ORDER BY a.timestamp DESC")
-    Page<AuditLog> findByActionAndTimestampBetween(
-            @Param("action") String action,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            Pageable pageable);
+    @Query(TRAIL_SELECT +
+           "AND (a.timestamp < :beforeTimestamp OR (a.timestamp = :beforeTimestamp AND a.id < :beforeId)) " +
+           TRAIL_ORDER)
+    List<AuditLogResponse> findEntityAuditTrailBefore(
+            @Param("entityType") String entityType,
+            @Param("entityId") Long entityId,
+            @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+            @Param("beforeId") Long beforeId,
+            Limit limit);
 
     /**
-     * Complex search: entity type, action, user, and time period
+     * Single audit log with full old/new values
      */
-    @Query("SELECT a FROM AuditLog a WHERE " +
-           "(:entityType IS NULL OR a.entityType = :entityType) AND " +
-           "(:action IS NULL OR a.action = :action) AND " +
-           "(:userId IS NULL OR a.user.id = :userId) AND " +
-           "a.timestamp BETWEEN :startDate AND :endDate " +
-           "ORDER BY a.timestamp DESC")
-    Page<AuditLog> searchAuditLogs(
-            @Param("entityType") String entityType,
-            @Param("action") String action,
-            @Param("userId") Long userId,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            Pageable pageable);
+    @Query("SELECT new com.sales.management.model.dto.response.AuditLogResponse(" +
+           "a.id, a.entityType, a.entityId, a.action, a.oldValue, a.newValue, a.changes, " +
+           "u.id, u.name, a.ipAddress, a.userAgent, a.timestamp) " +
+           "FROM AuditLog a JOIN a.user u WHERE a.id = :id")
+    Optional<AuditLogResponse> findDetailById(@Param("id") Long id);
 
     /**
-     * Get all audit logs for a specific entity
+     * Patches de uma entidade em ordem de gravação, a partir do último CREATE até o instante informado
      */
-    @Query("SELECT a FROM AuditLog a WHERE a.entityType = :entityType AND a.entityId = :entityId ORDER BY a.timestamp DESC")
-    List<AuditLog> findEntityAuditTrail(
+    @Query("SELECT a.changes FROM AuditLog a " +
+           "WHERE a.entityType = :entityType AND a.entityId = :entityId " +
+           "AND a.changes IS NOT NULL AND a.timestamp <= :at " +
+           "AND a.timestamp >= (SELECT MAX(c.timestamp) FROM AuditLog c " +
+           "    WHERE c.entityType = :entityType AND c.entityId = :entityId " +
+           "    AND c.action = 'CREATE' AND c.changes IS NOT NULL AND c.timestamp <= :at) " +
+           "ORDER BY a.timestamp, a.id")
+    List<String> findChangesForReplay(
             @Param("entityType") String entityType,
-            @Param("entityId") Long entityId);
+            @Param("entityId") Long entityId,
+            @Param("at") LocalDateTime at);
 }
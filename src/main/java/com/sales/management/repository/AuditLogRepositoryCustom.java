@@ -0,0 +1,18 @@
+package com.sales.management.repository;
+
+import com.sales.management.model.dto.response.AuditLogResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface AuditLogRepositoryCustom {
+
+    /**
+     * Busca paginada com apenas os predicados dos filtros informados
+     */
+    Page<AuditLogResponse> search(AuditLogFilter filter, Pageable pageable);
+
+    /**
+     * Busca pelo conteúdo JSON (contains/jsonPath do filtro) usando os índices GIN jsonb_path_ops
+     */
+    Page<AuditLogResponse> searchContent(AuditLogFilter filter, Pageable pageable);
+}
@@ -0,0 +1,264 @@
+package com.sales.management.repository;
+
+import com.sales.management.exception.BadRequestException;
+import com.sales.management.model.dto.response.AuditLogResponse;
+import com.sales.management.model.entity.AuditLog;
+import com.sales.management.model.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.criteria.JpaExpression;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Busca dinâmica de auditoria. Em vez de "(:x IS NULL OR a.x = :x)", cada combinação de filtros
+ * gera um SQL próprio só com as colunas informadas, e o Postgres escolhe o índice composto
+ * adequado (idx_audit_user_timestamp, idx_audit_action_timestamp, ...) para cada uma.
+ * A busca por conteúdo usa SQL nativo: @> e @@ não existem no JPQL e só eles usam os índices GIN
+ * (funções como jsonb_path_exists fazem varredura).
+ */
+@RequiredArgsConstructor
+class AuditLogRepositoryCustomImpl implements AuditLogRepositoryCustom {
+
+    private static final String CONTENT_SELECT =
+            "SELECT a.id, a.entity_type, a.entity_id, a.action, " +
+            "substr(CAST(a.old_value AS text), 1, " + AuditLogRepository.PREVIEW_LENGTH + ") AS old_value, " +
+            "substr(CAST(a.new_value AS text), 1, " + AuditLogRepository.PREVIEW_LENGTH + ") AS new_value, " +
+            "a.user_id, u.name AS user_name, a.ip_address, a.user_agent, a.timestamp " +
+            "FROM audit_logs a JOIN users u ON u.id = a.user_id";
+
+    private static final String CONTENT_COUNT = "SELECT COUNT(*) FROM audit_logs a";
+
+    /**
+     * Propriedades aceitas na ordenação da busca estruturada; outras viram 400 em vez de erro no Criteria
+     */
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "timestamp", "entityType", "entityId", "action");
+
+    /**
+     * Propriedades aceitas na ordenação da busca por conteúdo
+     */
+    private static final Map<String, String> CONTENT_SORT_COLUMNS = Map.of(
+            "timestamp", "a.timestamp",
+            "id", "a.id");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<AuditLogResponse> search(AuditLogFilter filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<AuditLogResponse> query = cb.createQuery(AuditLogResponse.class);
+        Root<AuditLog> root = query.from(AuditLog.class);
+        Join<AuditLog, User> user = root.join("user");
+        query.select(cb.construct(AuditLogResponse.class,
+                        root.get("id"),
+                        root.get("entityType"),
+                        root.get("entityId"),
+                        root.get("action"),
+                        preview(cb, root.get("oldValue")),
+                        preview(cb, root.get("newValue")),
+                        cb.nullLiteral(String.class),
+                        user.get("id"),
+                        user.get("name"),
+                        root.get("ipAddress"),
+                        root.get("userAgent"),
+                        root.get("timestamp")))
+                .where(predicates(cb, root, filter))
+                .orderBy(orders(cb, root, pageable.getSort()));
+
+        TypedQuery<AuditLogResponse> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        // O count só roda quando o total não pode ser deduzido da própria página
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(filter));
+    }
+
+    @Override
+    public Page<AuditLogResponse> searchContent(AuditLogFilter filter, Pageable pageable) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = contentWhere(filter, params);
+
+        StringBuilder sql = new StringBuilder(CONTENT_SELECT).append(where).append(contentOrder(pageable));
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT :limit OFFSET :offset");
+            params.addValue("limit", pageable.getPageSize());
+            params.addValue("offset", pageable.getOffset());
+        }
+
+        List<AuditLogResponse> content = jdbcTemplate.query(sql.toString(), params, (rs, rowNum) ->
+                AuditLogResponse.builder()
+                        .id(rs.getLong("id"))
+                        .entityType(rs.getString("entity_type"))
+                        .entityId(rs.getLong("entity_id"))
+                        .action(rs.getString("action"))
+                        .oldValue(rs.getString("old_value"))
+                        .newValue(rs.getString("new_value"))
+                        .userId(rs.getLong("user_id"))
+                        .userName(rs.getString("user_name"))
+                        .ipAddress(rs.getString("ip_address"))
+                        .userAgent(rs.getString("user_agent"))
+                        .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+                        .build());
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> jdbcTemplate.queryForObject(CONTENT_COUNT + where, params, Long.class));
+    }
+
+    /**
+     * Filtros estruturados (só os informados) + condição de conteúdo. Sem coluna definida,
+     * as três colunas entram num OR, que o Postgres resolve com BitmapOr sobre os índices GIN.
+     */
+    private String contentWhere(AuditLogFilter filter, MapSqlParameterSource params) {
+        List<String> predicates = new ArrayList<>();
+        if (filter.getEntityType() != null) {
+            predicates.add("a.entity_type = :entityType");
+            params.addValue("entityType", filter.getEntityType());
+        }
+        if (filter.getEntityId() != null) {
+            predicates.add("a.entity_id = :entityId");
+            params.addValue("entityId", filter.getEntityId());
+        }
+        if (filter.getAction() != null) {
+            predicates.add("a.action = :action");
+            params.addValue("action", filter.getAction());
+        }
+        if (filter.getUserId() != null) {
+            predicates.add("a.user_id = :userId");
+            params.addValue("userId", filter.getUserId());
+        }
+        if (filter.getStartDate() != null) {
+            predicates.add("a.timestamp >= :startDate");
+            params.addValue("startDate", filter.getStartDate());
+        }
+        if (filter.getEndDate() != null) {
+            predicates.add("a.timestamp <= :endDate");
+            params.addValue("endDate", filter.getEndDate());
+        }
+
+        List<AuditLogFilter.ContentField> fields = filter.getContentField() != null
+                ? List.of(filter.getContentField())
+                : List.of(AuditLogFilter.ContentField.values());
+        if (filter.getContains() != null) {
+            params.addValue("contains", filter.getContains());
+        }
+        if (filter.getJsonPath() != null) {
+            params.addValue("jsonPath", filter.getJsonPath());
+        }
+        List<String> contentPredicates = new ArrayList<>();
+        for (AuditLogFilter.ContentField field : fields) {
+            List<String> conditions = new ArrayList<>();
+            if (filter.getContains() != null) {
+                conditions.add("a." + field.getColumn() + " @> CAST(:contains AS jsonb)");
+            }
+            if (filter.getJsonPath() != null) {
+                conditions.add("a." + field.getColumn() + " @@ CAST(:jsonPath AS jsonpath)");
+            }
+            if (!conditions.isEmpty()) {
+                contentPredicates.add("(" + String.join(" AND ", conditions) + ")");
+            }
+        }
+        if (!contentPredicates.isEmpty()) {
+            predicates.add("(" + String.join(" OR ", contentPredicates) + ")");
+        }
+
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+
+    private String contentOrder(Pageable pageable) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            String column = CONTENT_SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw unsupportedSort(order);
+            }
+            orders.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        if (orders.isEmpty()) {
+            orders.add("a.timestamp DESC");
+        }
+        // Desempate estável entre páginas
+        orders.add("a.id DESC");
+        return " ORDER BY " + String.join(", ", orders);
+    }
+
+    private List<Order> orders(CriteriaBuilder cb, Root<AuditLog> root, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (!SORT_PROPERTIES.contains(order.getProperty())) {
+                throw unsupportedSort(order);
+            }
+            Path<Object> path = root.get(order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        return orders;
+    }
+
+    private BadRequestException unsupportedSort(Sort.Order order) {
+        return new BadRequestException("Ordenação não suportada: " + order.getProperty());
+    }
+
+    /**
+     * Início do JSON como texto (substring direto no jsonb não existe no Postgres)
+     */
+    private Expression<String> preview(CriteriaBuilder cb, Path<String> value) {
+        return cb.substring(((JpaExpression<String>) value).cast(String.class), 1, AuditLogRepository.PREVIEW_LENGTH);
+    }
+
+    private long count(AuditLogFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<AuditLog> root = query.from(AuditLog.class);
+        // Sem join com users: o filtro por usuário usa a FK user_id
+        query.select(cb.count(root)).where(predicates(cb, root, filter));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private Predicate[] predicates(CriteriaBuilder cb, Root<AuditLog> root, AuditLogFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getEntityType() != null) {
+            predicates.add(cb.equal(root.get("entityType"), filter.getEntityType()));
+        }
+        if (filter.getEntityId() != null) {
+            predicates.add(cb.equal(root.get("entityId"), filter.getEntityId()));
+        }
+        if (filter.getAction() != null) {
+            predicates.add(cb.equal(root.get("action"), filter.getAction()));
+        }
+        if (filter.getUserId() != null) {
+            predicates.add(cb.equal(root.get("user").get("id"), filter.getUserId()));
+        }
+        if (filter.getStartDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("timestamp"), filter.getStartDate()));
+        }
+        if (filter.getEndDate() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<LocalDateTime>get("timestamp"), filter.getEndDate()));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+}
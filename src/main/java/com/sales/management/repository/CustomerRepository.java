@@ -8,7 +8,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
@@ -23,4 +25,10 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByPhoneContaining(String phone);
     
     boolean existsByPhone(String phone);
+
+    @Query("SELECT c.updatedAt FROM Customer c WHERE c.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    @Query("SELECT MAX(c.updatedAt) AS lastModified, COUNT(c) AS count FROM Customer c")
+    VersionStamp findVersionStamp();
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.sales.management.repository;
+
+import com.sales.management.model.entity.ProductDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductDeletionRepository extends JpaRepository<ProductDeletion, Long> {
+
+    /**
+     * Produtos desativados depois da data e que continuam inativos (reativados voltam como alteração)
+     */
+    @Query("SELECT DISTINCT d.productId FROM ProductDeletion d WHERE d.deletedAt > :since " +
+           "AND d.productId IN (SELECT p.id FROM Product p WHERE p.active = false)")
+    List<Long> findInactiveProductIdsDeletedAfter(@Param("since") LocalDateTime since);
+
+    @Query("SELECT MAX(d.deletedAt) FROM ProductDeletion d")
+    LocalDateTime findLastDeletedAt();
+}
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,18 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> findByActiveTrue(Pageable pageable);
     
     Optional<Product> findByIdAndActiveTrue(Long id);
+
+    List<Product> findAllByIdInAndActiveTrue(Collection<Long> ids);
+
+    List<Product> findByActiveTrueOrderByIdAsc();
+
+    List<Product> findByActiveTrueAndUpdatedAtAfter(LocalDateTime since);
+
+    /**
+     * Última alteração no catálogo, incluindo produtos desativados
+     */
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    LocalDateTime findLastUpdatedAt();
     
     Page<Product> findByCategory(String category, Pageable pageable);
     
@@ -27,4 +41,10 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT DISTINCT p.category FROM Product p WHERE p.active = true AND p.category IS NOT NULL")
     List<String> findAllCategories();
+
+    @Query("SELECT p.updatedAt FROM Product p WHERE p.id = :id AND p.active = true")
+    Optional<LocalDateTime> findActiveUpdatedAtById(@Param("id") Long id);
+
+    @Query("SELECT MAX(p.updatedAt) AS lastModified, COUNT(p) AS count FROM Product p WHERE p.active = true")
+    VersionStamp findActiveVersionStamp();
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SaleRepository extends JpaRepository<Sale, Long> {
@@ -65,4 +66,29 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
         @Param("startDate") LocalDateTime startDate,
         @Param("endDate") LocalDateTime endDate
     );
+
+    /**
+     * Versão de uma venda para requisições condicionais: o SaleResponse embute vendedor,
+     * cliente, produtos e pagamento, então qualquer um deles alterado invalida o ETag.
+     */
+    @Query("""
+           SELECT s.seller.id AS sellerId,
+                  s.updatedAt AS updatedAt,
+                  s.seller.updatedAt AS sellerUpdatedAt,
+                  s.customer.updatedAt AS customerUpdatedAt,
+                  (SELECT MAX(i.product.updatedAt) FROM SaleItem i WHERE i.sale.id = s.id) AS itemsUpdatedAt,
+                  (SELECT p.updatedAt FROM Payment p WHERE p.sale.id = s.id) AS paymentUpdatedAt
+           FROM Sale s
+           WHERE s.id = :id
+           """)
+    Optional<SaleVersion> findVersionById(@Param("id") Long id);
+
+    interface SaleVersion {
+        Long getSellerId();
+        LocalDateTime getUpdatedAt();
+        LocalDateTime getSellerUpdatedAt();
+        LocalDateTime getCustomerUpdatedAt();
+        LocalDateTime getItemsUpdatedAt();
+        LocalDateTime getPaymentUpdatedAt();
+    }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -31,4 +32,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
            "u.active = true")
     Page<User> searchUsers(@Param("search") String search, Pageable pageable);
+
+    @Query("SELECT u.updatedAt FROM User u WHERE u.id = :id AND u.active = true")
+    Optional<LocalDateTime> findActiveUpdatedAtById(@Param("id") Long id);
+
+    @Query("SELECT MAX(u.updatedAt) AS lastModified, COUNT(u) AS count FROM User u WHERE u.active = true")
+    VersionStamp findActiveVersionStamp();
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.sales.management.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção barata usada para validar requisições condicionais de listagens
+ * (maior updatedAt e total de linhas) sem carregar as entidades.
+ */
+public interface VersionStamp {
+
+    LocalDateTime getLastModified();
+
+    Long getCount();
+}
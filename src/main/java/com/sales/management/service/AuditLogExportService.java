@@ -0,0 +1,126 @@
+package com.sales.management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.sales.management.model.dto.response.AuditLogResponse;
+import com.sales.management.repository.AuditLogFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportação de auditoria em NDJSON (um registro completo por linha, em ordem de id).
+ * Usa cursor no servidor (fetch size com autocommit desligado), então a memória não cresce com o intervalo;
+ * se a conexão cair, o cliente retoma a partir do último id recebido (afterId).
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditLogExportService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String EXPORT_SELECT =
+            "SELECT a.id, a.entity_type, a.entity_id, a.action, a.old_value, a.new_value, a.changes, " +
+            "a.user_id, u.name AS user_name, a.ip_address, a.user_agent, a.timestamp " +
+            "FROM audit_logs a JOIN users u ON u.id = a.user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Escreve os registros do filtro com id maior que afterId (null = desde o início)
+     */
+    public void export(AuditLogFilter filter, Long afterId, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(EXPORT_SELECT).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        // Mesmo critério da busca: só os filtros informados entram no SQL
+        if (filter.getEntityType() != null) {
+            sql.append(" AND a.entity_type = ?");
+            params.add(filter.getEntityType());
+        }
+        if (filter.getEntityId() != null) {
+            sql.append(" AND a.entity_id = ?");
+            params.add(filter.getEntityId());
+        }
+        if (filter.getAction() != null) {
+            sql.append(" AND a.action = ?");
+            params.add(filter.getAction());
+        }
+        if (filter.getUserId() != null) {
+            sql.append(" AND a.user_id = ?");
+            params.add(filter.getUserId());
+        }
+        if (filter.getStartDate() != null) {
+            sql.append(" AND a.timestamp >= ?");
+            params.add(Timestamp.valueOf(filter.getStartDate()));
+        }
+        if (filter.getEndDate() != null) {
+            sql.append(" AND a.timestamp <= ?");
+            params.add(Timestamp.valueOf(filter.getEndDate()));
+        }
+        if (afterId != null) {
+            sql.append(" AND a.id > ?");
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY a.id");
+
+        // O pgjdbc só usa cursor dentro de uma transação
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        long[] written = {0};
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            transaction.executeWithoutResult(status -> jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement ps = connection.prepareStatement(sql.toString());
+                        ps.setFetchSize(FETCH_SIZE);
+                        for (int i = 0; i < params.size(); i++) {
+                            ps.setObject(i + 1, params.get(i));
+                        }
+                        return ps;
+                    },
+                    rs -> {
+                        try {
+                            writer.write(AuditLogResponse.builder()
+                                    .id(rs.getLong("id"))
+                                    .entityType(rs.getString("entity_type"))
+                                    .entityId(rs.getLong("entity_id"))
+                                    .action(rs.getString("action"))
+                                    .oldValue(rs.getString("old_value"))
+                                    .newValue(rs.getString("new_value"))
+                                    .changes(rs.getString("changes"))
+                                    .userId(rs.getLong("user_id"))
+                                    .userName(rs.getString("user_name"))
+                                    .ipAddress(rs.getString("ip_address"))
+                                    .userAgent(rs.getString("user_agent"))
+                                    .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+                                    .build());
+                            // Entrega ao cliente a cada lote buscado, sem acumular a resposta
+                            if (++written[0] % FETCH_SIZE == 0) {
+                                writer.flush();
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+            if (written[0] > 0) {
+                // O separador só vai entre os registros: fecha a última linha
+                writer.flush();
+                out.write('\n');
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
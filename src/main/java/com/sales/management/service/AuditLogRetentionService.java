@@ -0,0 +1,162 @@
+package com.sales.management.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manutenção das partições mensais de audit_logs (migrations V9 e V14):
+ * cria as partições dos próximos meses e aplica a retenção desanexando as partições antigas,
+ * que são movidas para o schema audit_archive (mode = archive) ou removidas (mode = drop).
+ * Remover uma partição inteira evita DELETEs massivos e o inchaço dos índices.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuditLogRetentionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("audit_logs_(\\d{4})_(\\d{2})");
+
+    /**
+     * Chave do advisory lock: com vários nós, só um executa a manutenção
+     */
+    private static final long ADVISORY_LOCK_KEY = 7_310_043L;
+
+    private static final String PARTITIONS_QUERY =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'audit_logs'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${audit.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${audit.retention.months:12}")
+    private int retentionMonths;
+
+    /**
+     * archive, drop ou none
+     */
+    @Value("${audit.retention.mode:archive}")
+    private String retentionMode;
+
+    /**
+     * Na subida só garante as partições futuras: DETACH/DROP pegam ACCESS EXCLUSIVE em audit_logs
+     * e, num deploy, bloqueariam gravações e buscas de auditoria; a retenção fica para o agendamento
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPartitionsOnStartup() {
+        createFuturePartitions(LocalDate.now());
+    }
+
+    /**
+     * Cada mês é tratado numa transação própria: a falha de um (ex: DDL bloqueado) é registrada
+     * e não desfaz nem impede os demais
+     */
+    @Scheduled(cron = "${audit.partitions.cron:0 30 2 * * *}")
+    public void maintainPartitions() {
+        LocalDate today = LocalDate.now();
+        if (createFuturePartitions(today)) {
+            applyRetention(today);
+        }
+    }
+
+    /**
+     * @return false se outro nó está executando a manutenção
+     */
+    private boolean createFuturePartitions(LocalDate today) {
+        YearMonth current = YearMonth.from(today);
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate monthStart = current.plusMonths(i).atDay(1);
+            boolean locked = step("criação da partição de " + YearMonth.from(monthStart), () ->
+                    jdbcTemplate.queryForObject("SELECT create_audit_log_partition(?)", String.class, monthStart));
+            if (!locked) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void applyRetention(LocalDate today) {
+        if ("none".equalsIgnoreCase(retentionMode)) {
+            return;
+        }
+
+        YearMonth oldestKept = YearMonth.from(today).minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_QUERY, String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+
+            boolean locked = step("retenção da partição " + partition, () -> {
+                // A lista foi lida fora do lock: outro nó pode já ter desanexado a partição
+                if (!isAttached(partition)) {
+                    log.info("Partição de auditoria {} já desanexada", partition);
+                    return;
+                }
+                // Nome validado pelo padrão acima, seguro para concatenar no DDL
+                jdbcTemplate.execute("ALTER TABLE audit_logs DETACH PARTITION " + partition);
+                if ("drop".equalsIgnoreCase(retentionMode)) {
+                    jdbcTemplate.execute("DROP TABLE " + partition);
+                    log.info("Partição de auditoria {} removida (retenção de {} meses)", partition, retentionMonths);
+                } else {
+                    jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA audit_archive");
+                    log.info("Partição de auditoria {} arquivada em audit_archive", partition);
+                }
+            });
+            if (!locked) {
+                return;
+            }
+        }
+    }
+
+    private boolean isAttached(String partition) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (" + PARTITIONS_QUERY + ") partitions WHERE relname = ?", Integer.class, partition);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Executa um passo da manutenção na sua transação, com o advisory lock (com vários nós, só um executa).
+     * Falhas são registradas e a manutenção segue para o próximo mês.
+     * @return false se o lock está com outro nó
+     */
+    private boolean step(String description, Runnable action) {
+        try {
+            Boolean locked = new TransactionTemplate(transactionManager).execute(status -> {
+                Boolean acquired = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+                if (Boolean.TRUE.equals(acquired)) {
+                    action.run();
+                }
+                return acquired;
+            });
+            return Boolean.TRUE.equals(locked);
+        } catch (Exception e) {
+            log.error("Falha na manutenção de audit_logs ({}): {}", description, e.getMessage());
+            return true;
+        }
+    }
+}
@@ -1,22 +1,38 @@
 package com.sales.management.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sales.management.exception.BadRequestException;
+import com.sales.management.exception.BusinessException;
+import com.sales.management.exception.ResourceNotFoundException;
+import com.sales.management.model.dto.response.AuditLogResponse;
+import com.sales.management.model.dto.response.AuditTrailResponse;
 import com.sales.management.model.entity.AuditLog;
 import com.sales.management.model.entity.User;
+import com.sales.management.repository.AuditLogFilter;
 import com.sales.management.repository.AuditLogRepository;
 import com.sales.management.repository.UserRepository;
 import com.sales.management.util.Constants;
+import com.sales.management.util.JsonPatchUtil;
 import com.sales.management.exception.UnauthorizedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 
 @Slf4j
@@ -26,124 +42,228 @@ public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
     private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final AuditLogSink auditLogSink;
+    private final JdbcTemplate jdbcTemplate;
+
+    public static final int TRAIL_DEFAULT_LIMIT = 50;
+    public static final int TRAIL_MAX_LIMIT = 200;
 
     /**
      * Create an audit log entry
      */
     @Transactional
-    public AuditLog createAuditLog(String entityType, Long entityId, String action, 
-                                   String oldValue, String newValue) {
-        User user = getCurrentUser();
-        
-        AuditLog auditLog = AuditLog.builder()
+    public void createAuditLog(String entityType, Long entityId, String action, 
+                               String oldValue, String newValue) {
+        save(AuditLog.builder()
                 .entityType(entityType)
                 .entityId(entityId)
                 .action(action)
-                .oldValue(oldValue)
-                .newValue(newValue)
-                .user(user)
-                .ipAddress(getClientIpAddress())
-                .userAgent(getUserAgent())
-                .timestamp(LocalDateTime.now())
-                .build();
-
-        AuditLog saved = auditLogRepository.save(auditLog);
-        log.info("Audit log created: {} - {} - {} by user {}", entityType, entityId, action, user.getId());
-        return saved;
+                .oldValue(toJson(oldValue))
+                .newValue(toJson(newValue)));
     }
 
     /**
-     * Create an audit log entry with only action (for simple operations like DELETE)
+     * Create an audit log entry storing only the JSON Patch between the snapshots taken
+     * before and after the change (before = null for CREATE)
      */
     @Transactional
-    public AuditLog createAuditLog(String entityType, Long entityId, String action) {
-        return createAuditLog(entityType, entityId, action, null, null);
+    public void recordChange(String entityType, Long entityId, String action,
+                             JsonNode before, JsonNode after) {
+        save(AuditLog.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .action(action)
+                .changes(JsonPatchUtil.diff(before, after).toString()));
     }
 
     /**
-     * Get all audit logs for a specific entity (audit trail)
+     * Create an audit log entry with only action (for simple operations like DELETE)
      */
-    public List<AuditLog> getEntityAuditTrail(String entityType, Long entityId) {
-        return auditLogRepository.findEntityAuditTrail(entityType, entityId);
+    @Transactional
+    public void createAuditLog(String entityType, Long entityId, String action) {
+        createAuditLog(entityType, entityId, action, null, null);
     }
 
     /**
-     * Search by entity type only
+     * Get one page of an entity audit trail, newest first. The cursor is the nextCursor of the previous page
      */
-    public Page<AuditLog> findByEntityType(String entityType, Pageable pageable) {
-        return auditLogRepository.findByEntityType(entityType, pageable);
+    public AuditTrailResponse getEntityAuditTrail(String entityType, Long entityId, String cursor, Integer limit) {
+        int pageSize = Math.min(limit != null && limit > 0 ? limit : TRAIL_DEFAULT_LIMIT, TRAIL_MAX_LIMIT);
+        // Um registro a mais só para saber se existe próxima página
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<AuditLogResponse> entries;
+        if (cursor == null || cursor.isBlank()) {
+            entries = auditLogRepository.findEntityAuditTrail(entityType, entityId, fetchLimit);
+        } else {
+            TrailCursor position = TrailCursor.decode(cursor);
+            entries = auditLogRepository.findEntityAuditTrailBefore(
+                    entityType, entityId, position.timestamp(), position.id(), fetchLimit);
+        }
+
+        String nextCursor = null;
+        if (entries.size() > pageSize) {
+            entries = entries.subList(0, pageSize);
+            AuditLogResponse last = entries.get(pageSize - 1);
+            nextCursor = new TrailCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return AuditTrailResponse.builder()
+                .entries(entries)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     /**
-     * Search by entity type and entity ID
+     * Rebuild an entity state at a given moment by replaying the patches from its CREATE record.
+     * Entities without a CREATE patch (e.g. payments of sales created before PAYMENT CREATE was recorded) give 404
      */
-    public Page<AuditLog> findByEntityTypeAndEntityId(String entityType, Long entityId, Pageable pageable) {
-        return auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId, pageable);
+    public JsonNode reconstructState(String entityType, Long entityId, LocalDateTime at) {
+        List<String> patches = auditLogRepository.findChangesForReplay(
+                entityType, entityId, at != null ? at : LocalDateTime.now());
+        if (patches.isEmpty()) {
+            throw new ResourceNotFoundException(Constants.AUDIT_LOG_NOT_FOUND);
+        }
+
+        JsonNode state = null;
+        try {
+            for (String patch : patches) {
+                state = JsonPatchUtil.apply(state, objectMapper.readTree(patch));
+            }
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("Histórico de auditoria inválido para " + entityType + " " + entityId);
+        }
+        return state;
     }
 
     /**
-     * Search by action type (CREATE, UPDATE, DELETE)
+     * Get a single audit log with full old/new values
      */
-    public Page<AuditLog> findByAction(String action, Pageable pageable) {
-        return auditLogRepository.findByAction(action, pageable);
+    public AuditLogResponse getAuditLogDetail(Long id) {
+        return auditLogRepository.findDetailById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(Constants.AUDIT_LOG_NOT_FOUND));
     }
 
     /**
-     * Search by user ID
+     * Search with any combination of filters (null filters are ignored)
      */
-    public Page<AuditLog> findByUser(Long userId, Pageable pageable) {
-        return auditLogRepository.findByUserId(userId, pageable);
+    public Page<AuditLogResponse> search(AuditLogFilter filter, Pageable pageable) {
+        return auditLogRepository.search(filter, pageable);
     }
 
     /**
-     * Search by user ID and action
+     * Search by JSON content of old/new values and changes: containment document and/or JSONPath predicate.
+     * jsonPath must be a predicate ($.customerId == 42): @@ ignores non-boolean results, so a plain path
+     * like $.customerId matches nothing
      */
-    public Page<AuditLog> findByUserAndAction(Long userId, String action, Pageable pageable) {
-        return auditLogRepository.findByUserIdAndAction(userId, action, pageable);
+    public Page<AuditLogResponse> searchContent(AuditLogFilter filter, Pageable pageable) {
+        if (filter.getContains() == null && filter.getJsonPath() == null) {
+            throw new BadRequestException("Informe contains ou jsonPath");
+        }
+        if (filter.getContains() != null) {
+            try {
+                JsonNode contains = objectMapper.readTree(filter.getContains());
+                if (!contains.isContainerNode()) {
+                    throw new BadRequestException("contains deve ser um objeto ou array JSON");
+                }
+            } catch (JsonProcessingException e) {
+                throw new BadRequestException("contains não é um JSON válido");
+            }
+        }
+        if (filter.getJsonPath() != null) {
+            validateJsonPath(filter.getJsonPath());
+        }
+        return auditLogRepository.searchContent(filter, pageable);
     }
 
     /**
-     * Search by time period
+     * A sintaxe do JSONPath é a do Postgres: valida com o próprio parser antes da busca,
+     * para que um jsonPath inválido seja 400 e não um erro na consulta
      */
-    public Page<AuditLog> findByTimePeriod(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        return auditLogRepository.findByTimestampBetween(startDate, endDate, pageable);
+    private void validateJsonPath(String jsonPath) {
+        try {
+            jdbcTemplate.queryForObject("SELECT CAST(? AS jsonpath)::text", String.class, jsonPath);
+        } catch (BadSqlGrammarException | DataIntegrityViolationException e) {
+            throw new BadRequestException("jsonPath não é um JSONPath válido: " + e.getMostSpecificCause().getMessage());
+        }
     }
 
     /**
-     * Search by entity type and time period
+     * Complex search with multiple criteria
+     * All parameters are optional (null filters are ignored)
      */
-    public Page<AuditLog> findByEntityTypeAndTimePeriod(String entityType, LocalDateTime startDate, 
-                                                        LocalDateTime endDate, Pageable pageable) {
-        return auditLogRepository.findByEntityTypeAndTimestampBetween(entityType, startDate, endDate, pageable);
+    public Page<AuditLogResponse> searchAuditLogs(String entityType, String action, Long userId, 
+                                          LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
+        // Set default time period if not provided
+        LocalDateTime start = startDate != null ? startDate : LocalDateTime.now().minusMonths(1);
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+
+        return search(AuditLogFilter.builder()
+                .entityType(entityType)
+                .action(action)
+                .userId(userId)
+                .startDate(start)
+                .endDate(end)
+                .build(), pageable);
     }
 
     /**
-     * Search by user and time period
+     * old_value/new_value são jsonb: texto que não é JSON é gravado como string JSON
      */
-    public Page<AuditLog> findByUserAndTimePeriod(Long userId, LocalDateTime startDate, 
-                                                  LocalDateTime endDate, Pageable pageable) {
-        return auditLogRepository.findByUserIdAndTimestampBetween(userId, startDate, endDate, pageable);
+    private String toJson(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            objectMapper.readTree(value);
+            return value;
+        } catch (JsonProcessingException e) {
+            return objectMapper.valueToTree(value).toString();
+        }
     }
 
     /**
-     * Search by action and time period
+     * Grava pelo AuditLogSink (COPY em lote após o commit) ou, com audit.sink.async=false, na própria transação
      */
-    public Page<AuditLog> findByActionAndTimePeriod(String action, LocalDateTime startDate, 
-                                                    LocalDateTime endDate, Pageable pageable) {
-        return auditLogRepository.findByActionAndTimestampBetween(action, startDate, endDate, pageable);
+    private void save(AuditLog.AuditLogBuilder builder) {
+        User user = getCurrentUser();
+        AuditLog auditLog = builder
+                .user(user)
+                .ipAddress(getClientIpAddress())
+                .userAgent(getUserAgent())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        if (auditLogSink.isAsync()) {
+            auditLogSink.enqueue(auditLog);
+        } else {
+            auditLogRepository.save(auditLog);
+        }
+        log.debug("Audit log created: {} - {} - {} by user {}",
+                auditLog.getEntityType(), auditLog.getEntityId(), auditLog.getAction(), user.getId());
     }
 
     /**
-     * Complex search with multiple criteria
-     * All parameters are optional (null filters are ignored)
+     * Posição (timestamp, id) do último registro entregue, opaca para o cliente
      */
-    public Page<AuditLog> searchAuditLogs(String entityType, String action, Long userId, 
-                                          LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        // Set default time period if not provided
-        LocalDateTime start = startDate != null ? startDate : LocalDateTime.now().minusMonths(1);
-        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+    private record TrailCursor(LocalDateTime timestamp, Long id) {
 
-        return auditLogRepository.searchAuditLogs(entityType, action, userId, start, end, pageable);
+        String encode() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static TrailCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new TrailCursor(
+                        LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor inválido");
+            }
+        }
     }
 
     /**
@@ -0,0 +1,262 @@
+package com.sales.management.service;
+
+import com.sales.management.model.entity.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação em lote dos registros de auditoria: as entradas são enfileiradas após o commit da
+ * transação de negócio e uma thread dedicada as grava com COPY (pgjdbc CopyManager) quando o lote
+ * enche ou o intervalo expira. Se o COPY falhar, o lote é gravado com INSERT em batch, dividido
+ * ao meio a cada falha para descartar só as linhas inválidas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogSink {
+
+    private static final String COLUMNS =
+            "entity_type, entity_id, action, old_value, new_value, changes, user_id, ip_address, user_agent, timestamp";
+
+    private static final String COPY_SQL = "COPY audit_logs (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_SQL = "INSERT INTO audit_logs (" + COLUMNS + ") " +
+            "VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?::jsonb, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * false: grava direto na transação de negócio (um INSERT por registro, como antes)
+     */
+    @Value("${audit.sink.async:true}")
+    private boolean async;
+
+    @Value("${audit.sink.batch-size:2000}")
+    private int batchSize;
+
+    @Value("${audit.sink.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${audit.sink.capacity:100000}")
+    private int capacity;
+
+    private BlockingQueue<AuditLog> queue;
+    private Thread writer;
+    private volatile boolean running;
+    /**
+     * Tudo que foi enfileirado antes deste instante já foi gravado
+     */
+    private volatile LocalDateTime writtenUpTo;
+
+    private Counter copiedRows;
+    private Counter insertedRows;
+    private Counter failedRows;
+    private Timer flushTimer;
+
+    @PostConstruct
+    void start() {
+        queue = new LinkedBlockingQueue<>(capacity);
+        writtenUpTo = LocalDateTime.now();
+        copiedRows = meterRegistry.counter("audit.sink.rows", "method", "copy");
+        insertedRows = meterRegistry.counter("audit.sink.rows", "method", "insert");
+        failedRows = meterRegistry.counter("audit.sink.rows", "method", "failed");
+        flushTimer = Timer.builder("audit.sink.flush.latency").register(meterRegistry);
+        meterRegistry.gauge("audit.sink.queue.size", queue, BlockingQueue::size);
+
+        if (async) {
+            running = true;
+            writer = new Thread(this::writeLoop, "audit-log-sink");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Instante até o qual a fila deste nó já foi gravada; sem fila (async=false) o registro é gravado
+     * na própria transação. Não cobre registros ainda em transações abertas nem a fila de outros nós
+     */
+    public LocalDateTime writtenUpTo() {
+        return async ? writtenUpTo : LocalDateTime.now();
+    }
+
+    /**
+     * Enfileira o registro após o commit (rollback descarta a auditoria junto com a operação)
+     */
+    public void enqueue(AuditLog auditLog) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(auditLog);
+                }
+            });
+        } else {
+            offer(auditLog);
+        }
+    }
+
+    private void offer(AuditLog auditLog) {
+        if (!queue.offer(auditLog)) {
+            // Fila cheia (banco lento ou fora): grava na thread do chamador em vez de perder o registro
+            log.warn("Fila de auditoria cheia ({}), gravando diretamente", capacity);
+            write(List.of(auditLog));
+        }
+    }
+
+    private void writeLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    AuditLog next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Parada: grava o que já foi retirado e esvazia a fila
+                running = false;
+                queue.drainTo(batch);
+            }
+            // Fila vazia depois do instante da coleta: tudo que entrou antes dele está no lote
+            LocalDateTime collectedAt = LocalDateTime.now();
+            boolean caughtUp = queue.isEmpty();
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            if (caughtUp) {
+                writtenUpTo = collectedAt;
+            }
+        }
+    }
+
+    /**
+     * Grava o lote (package-private para os testes)
+     */
+    void write(List<AuditLog> batch) {
+        flushTimer.record(() -> {
+            try {
+                copy(batch);
+                copiedRows.increment(batch.size());
+            } catch (Exception e) {
+                log.warn("COPY de {} registros de auditoria falhou, usando INSERT em lote: {}", batch.size(), e.getMessage());
+                insertBisecting(batch);
+            }
+        });
+    }
+
+    /**
+     * INSERT em lote numa transação; se falhar, o lote é dividido ao meio até isolar as linhas
+     * com erro, que são registradas no log e descartadas sem perder as demais
+     */
+    private void insertBisecting(List<AuditLog> rows) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> insert(rows));
+            insertedRows.increment(rows.size());
+        } catch (Exception e) {
+            if (rows.size() == 1) {
+                AuditLog row = rows.get(0);
+                failedRows.increment();
+                log.error("Registro de auditoria descartado: {} {} {} em {} (usuário {}): {}",
+                        row.getEntityType(), row.getEntityId(), row.getAction(), row.getTimestamp(),
+                        row.getUser() != null ? row.getUser().getId() : null, e.getMessage());
+                return;
+            }
+            int middle = rows.size() / 2;
+            insertBisecting(rows.subList(0, middle));
+            insertBisecting(rows.subList(middle, rows.size()));
+        }
+    }
+
+    private void copy(List<AuditLog> batch) throws Exception {
+        StringBuilder csv = new StringBuilder(batch.size() * 256);
+        for (AuditLog auditLog : batch) {
+            csv.append(csvField(auditLog.getEntityType())).append(',')
+                    .append(csvField(auditLog.getEntityId())).append(',')
+                    .append(csvField(auditLog.getAction())).append(',')
+                    .append(csvField(auditLog.getOldValue())).append(',')
+                    .append(csvField(auditLog.getNewValue())).append(',')
+                    .append(csvField(auditLog.getChanges())).append(',')
+                    .append(csvField(auditLog.getUser().getId())).append(',')
+                    .append(csvField(auditLog.getIpAddress())).append(',')
+                    .append(csvField(auditLog.getUserAgent())).append(',')
+                    .append(csvField(Timestamp.valueOf(auditLog.getTimestamp())))
+                    .append('\n');
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    COPY_SQL, new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private void insert(List<AuditLog> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batchSize, (ps, auditLog) -> {
+            ps.setString(1, auditLog.getEntityType());
+            ps.setLong(2, auditLog.getEntityId());
+            ps.setString(3, auditLog.getAction());
+            ps.setString(4, auditLog.getOldValue());
+            ps.setString(5, auditLog.getNewValue());
+            ps.setString(6, auditLog.getChanges());
+            ps.setLong(7, auditLog.getUser().getId());
+            ps.setString(8, auditLog.getIpAddress());
+            ps.setString(9, auditLog.getUserAgent());
+            ps.setTimestamp(10, Timestamp.valueOf(auditLog.getTimestamp()));
+        });
+    }
+
+    /**
+     * Campo CSV: null vira campo vazio sem aspas (NULL no COPY); o resto vai entre aspas
+     */
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return '"' + value.toString().replace("\"", "\"\"") + '"';
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.sales.management.service;
+
+import com.sales.management.exception.BadRequestException;
+import com.sales.management.model.dto.response.AuditStatsResponse;
+import com.sales.management.model.dto.response.AuditStatsResponse.BucketCountDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Contagem de registros de auditoria por bucket (hora ou dia), ação, tipo de entidade e usuário,
+ * feita no banco com GROUP BY. Dias já fechados não mudam mais: ficam no Redis (um valor por dia)
+ * e só os dias em miss são calculados, numa única consulta; o dia corrente e as pontas parciais
+ * são sempre calculados na hora.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditStatsService {
+
+    private static final String CACHE_PREFIX = "auditStats:";
+    private static final long CLOSED_DAY_TTL = Duration.ofHours(24).toSeconds();
+
+    /**
+     * Margem após a meia-noite antes de considerar o dia fechado, além da fila deste nó já gravada
+     * (AuditLogSink.writtenUpTo): cobre transações longas, cujo registro leva o horário de criação mas só
+     * é enfileirado após o commit, e a fila dos outros nós
+     */
+    private static final Duration CLOSE_GRACE = Duration.ofHours(1);
+
+    /**
+     * Dias fechados há menos que isso ficam pouco tempo no cache: um registro que ainda chegue aparece logo
+     */
+    private static final Duration RECENTLY_CLOSED = Duration.ofDays(1);
+    private static final long RECENTLY_CLOSED_DAY_TTL = Duration.ofMinutes(10).toSeconds();
+
+    private static final int MAX_HOUR_RANGE_DAYS = 31;
+    private static final int MAX_DAY_RANGE_DAYS = 366;
+
+    private static final String STATS_QUERY =
+            "SELECT date_trunc('%s', a.timestamp) AS bucket_start, a.action, a.entity_type, " +
+            "a.user_id, u.name AS user_name, COUNT(*) AS total " +
+            "FROM audit_logs a JOIN users u ON u.id = a.user_id " +
+            "WHERE a.timestamp >= ? AND a.timestamp < ? " +
+            "GROUP BY 1, 2, 3, 4, 5";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheService cacheService;
+    private final AuditLogSink auditLogSink;
+
+    public AuditStatsResponse getStats(LocalDateTime startDate, LocalDateTime endDate, String bucket) {
+        ChronoUnit unit = switch (bucket == null ? "day" : bucket.toLowerCase()) {
+            case "hour" -> ChronoUnit.HOURS;
+            case "day" -> ChronoUnit.DAYS;
+            default -> throw new BadRequestException("bucket deve ser hour ou day");
+        };
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new BadRequestException("Informe startDate e endDate (endDate >= startDate)");
+        }
+
+        // Buckets inteiros que tocam o intervalo
+        LocalDateTime from = startDate.truncatedTo(unit);
+        LocalDateTime to = endDate.truncatedTo(unit).plus(1, unit);
+        long maxDays = unit == ChronoUnit.HOURS ? MAX_HOUR_RANGE_DAYS : MAX_DAY_RANGE_DAYS;
+        if (Duration.between(from, to).toDays() > maxDays) {
+            throw new BadRequestException("Intervalo máximo para bucket " + unitName(unit) + ": " + maxDays + " dias");
+        }
+
+        // Dias inteiros dentro do intervalo e já fechados vêm do cache
+        LocalDate firstClosedDay = from.toLocalDate().atStartOfDay().equals(from)
+                ? from.toLocalDate() : from.toLocalDate().plusDays(1);
+        LocalDate lastClosedDay = to.toLocalDate().minusDays(1);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime closedUpTo = now.minus(CLOSE_GRACE);
+        LocalDateTime writtenUpTo = auditLogSink.writtenUpTo();
+        if (writtenUpTo.isBefore(closedUpTo)) {
+            closedUpTo = writtenUpTo;
+        }
+        LocalDate lastFinishedDay = closedUpTo.toLocalDate().minusDays(1);
+        if (lastClosedDay.isAfter(lastFinishedDay)) {
+            lastClosedDay = lastFinishedDay;
+        }
+
+        List<BucketCountDTO> counts = new ArrayList<>();
+        if (firstClosedDay.isAfter(lastClosedDay)) {
+            counts.addAll(query(unit, from, to));
+        } else {
+            LocalDate lastSettledDay = now.minus(RECENTLY_CLOSED).toLocalDate().minusDays(1);
+            Map<Boolean, List<LocalDate>> closedDays = firstClosedDay.datesUntil(lastClosedDay.plusDays(1))
+                    .collect(Collectors.partitioningBy(day -> !day.isAfter(lastSettledDay)));
+            counts.addAll(cachedDays(unit, closedDays.get(true), CLOSED_DAY_TTL));
+            counts.addAll(cachedDays(unit, closedDays.get(false), RECENTLY_CLOSED_DAY_TTL));
+
+            // Pontas fora dos dias fechados: início parcial e o que vem depois (ex: hoje)
+            LocalDateTime closedStart = firstClosedDay.atStartOfDay();
+            LocalDateTime closedEnd = lastClosedDay.plusDays(1).atStartOfDay();
+            if (from.isBefore(closedStart)) {
+                counts.addAll(query(unit, from, closedStart));
+            }
+            if (closedEnd.isBefore(to)) {
+                counts.addAll(query(unit, closedEnd, to));
+            }
+        }
+
+        counts.sort(Comparator.comparing(BucketCountDTO::getBucketStart)
+                .thenComparing(BucketCountDTO::getAction)
+                .thenComparing(BucketCountDTO::getEntityType)
+                .thenComparing(BucketCountDTO::getUserId));
+
+        return AuditStatsResponse.builder()
+                .bucket(unitName(unit))
+                .startDate(from)
+                .endDate(to)
+                .total(counts.stream().mapToLong(BucketCountDTO::getCount).sum())
+                .counts(counts)
+                .build();
+    }
+
+    private List<BucketCountDTO> cachedDays(ChronoUnit unit, List<LocalDate> days, long ttlSeconds) {
+        if (days.isEmpty()) {
+            return List.of();
+        }
+        return cacheService.getOrComputeMany(days, day -> CACHE_PREFIX + unitName(unit) + ":" + day, DayStats.class,
+                        missing -> loadDays(unit, missing), ttlSeconds)
+                .values().stream()
+                .flatMap(day -> day.getCounts().stream())
+                .toList();
+    }
+
+    /**
+     * Uma consulta para todos os dias em miss (do primeiro ao último), separada por dia para o cache.
+     * Dias sem registros também são guardados, para não voltar ao banco
+     */
+    private Map<LocalDate, DayStats> loadDays(ChronoUnit unit, Collection<LocalDate> missing) {
+        LocalDate first = Collections.min(missing);
+        LocalDate last = Collections.max(missing);
+
+        Map<LocalDate, DayStats> byDay = new LinkedHashMap<>();
+        missing.forEach(day -> byDay.put(day, new DayStats(new ArrayList<>())));
+        for (BucketCountDTO count : query(unit, first.atStartOfDay(), last.plusDays(1).atStartOfDay())) {
+            DayStats day = byDay.get(count.getBucketStart().toLocalDate());
+            if (day != null) {
+                day.getCounts().add(count);
+            }
+        }
+        return byDay;
+    }
+
+    private List<BucketCountDTO> query(ChronoUnit unit, LocalDateTime from, LocalDateTime to) {
+        // A unidade vem do switch acima (hour/day), nunca do parâmetro cru
+        return jdbcTemplate.query(String.format(STATS_QUERY, unitName(unit)),
+                (rs, rowNum) -> BucketCountDTO.builder()
+                        .bucketStart(rs.getTimestamp("bucket_start").toLocalDateTime())
+                        .action(rs.getString("action"))
+                        .entityType(rs.getString("entity_type"))
+                        .userId(rs.getLong("user_id"))
+                        .userName(rs.getString("user_name"))
+                        .count(rs.getLong("total"))
+                        .build(),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private static String unitName(ChronoUnit unit) {
+        return unit == ChronoUnit.HOURS ? "hour" : "day";
+    }
+
+    /**
+     * Contagens de um dia fechado, como ficam no cache
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayStats {
+        private List<BucketCountDTO> counts;
+    }
+}
@@ -2,31 +2,88 @@ package com.sales.management.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sales.management.cache.CacheMetrics;
+import com.sales.management.cache.RedisCircuitBreaker;
+import com.sales.management.cache.StampedeGuard;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public class CacheService {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
 
+    /**
+     * Chaves por iteração do SCAN e por comando UNLINK em deletePattern
+     */
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    /**
+     * Chaves por comando MGET e por pipeline em getMany/setMany
+     */
+    private static final int MULTI_KEY_BATCH_SIZE = 500;
+
+    /**
+     * Sufixo da chave que guarda quanto tempo (ms) levou o último cálculo de getOrCompute (XFetch)
+     */
+    private static final String DELTA_SUFFIX = ":delta";
+
+    /**
+     * Limite de remoções guardadas com o circuito aberto; acima dele o prefixo inteiro é removido na volta
+     */
+    private static final int MAX_PENDING_DELETES = 10_000;
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private StampedeGuard stampedeGuard;
+
+    @Autowired
+    private CacheMetrics cacheMetrics;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
     @Value("${cache.default-ttl:300}")
     private long defaultTtl;
 
+    /**
+     * Remoções feitas com o Redis indisponível, reaplicadas quando o circuito fecha
+     */
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+    private final Set<String> pendingPatterns = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void registerRecoveryListener() {
+        circuitBreaker.addRecoveryListener(this::replayPendingDeletes);
+    }
+
     /**
      * Busca valor do cache
      * @param key Chave do cache
@@ -35,14 +92,10 @@ public class CacheService {
      */
     public <T> T get(String key, Class<T> clazz) {
         try {
-            Object cached = redisTemplate.opsForValue().get(key);
-            
+            Object cached = read(key);
             if (cached == null) {
-                logger.debug("Cache MISS: {}", key);
                 return null;
             }
-
-            logger.debug("Cache HIT: {}", key);
             return objectMapper.convertValue(cached, clazz);
         } catch (Exception e) {
             logger.error("Erro ao buscar cache [{}]: {}", key, e.getMessage());
@@ -58,14 +111,10 @@ public class CacheService {
      */
     public <T> T get(String key, TypeReference<T> typeReference) {
         try {
-            Object cached = redisTemplate.opsForValue().get(key);
-            
+            Object cached = read(key);
             if (cached == null) {
-                logger.debug("Cache MISS: {}", key);
                 return null;
             }
-
-            logger.debug("Cache HIT: {}", key);
             return objectMapper.convertValue(cached, typeReference);
         } catch (Exception e) {
             logger.error("Erro ao buscar cache [{}]: {}", key, e.getMessage());
@@ -73,6 +122,25 @@ public class CacheService {
         }
     }
 
+    /**
+     * Leitura medida em cache.gets/cache.get.latency, com o prefixo da chave como nome do cache
+     */
+    private Object read(String key) {
+        CacheMetrics.Meters meters = cacheMetrics.forCache(cacheName(key));
+        long start = System.nanoTime();
+        try {
+            Object cached = redis(key, "get", () -> redisTemplate.opsForValue().get(key), () -> null);
+            if (cached == null) {
+                meters.miss();
+            } else {
+                meters.hit(false);
+            }
+            return cached;
+        } finally {
+            meters.recordGet(start);
+        }
+    }
+
     /**
      * Salva valor no cache com TTL padrão
      * @param key Chave
@@ -89,47 +157,231 @@ public class CacheService {
      * @param ttlSeconds TTL em segundos
      */
     public <T> void set(String key, T value, long ttlSeconds) {
+        CacheMetrics.Meters meters = cacheMetrics.forCache(cacheName(key));
+        long start = System.nanoTime();
         try {
-            redisTemplate.opsForValue().set(key, value, ttlSeconds, TimeUnit.SECONDS);
-            logger.info("Cache salvo [{}] - TTL: {}s", key, ttlSeconds);
+            redis(key, "put", () -> {
+                redisTemplate.opsForValue().set(key, value, ttlSeconds, TimeUnit.SECONDS);
+                return null;
+            }, () -> null);
         } catch (Exception e) {
             logger.error("Erro ao salvar cache [{}]: {}", key, e.getMessage());
+        } finally {
+            meters.recordPut(start);
+        }
+    }
+
+    /**
+     * Busca várias chaves com MGET (um round trip por lote de MULTI_KEY_BATCH_SIZE)
+     * @param keys Chaves
+     * @param clazz Classe dos objetos
+     * @return Mapa chave -> valor só com os hits, na ordem das chaves
+     */
+    public <T> Map<String, T> getMany(Collection<String> keys, Class<T> clazz) {
+        List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<String, T> result = new LinkedHashMap<>();
+
+        for (int from = 0; from < distinctKeys.size(); from += MULTI_KEY_BATCH_SIZE) {
+            List<String> batch = distinctKeys.subList(from, Math.min(from + MULTI_KEY_BATCH_SIZE, distinctKeys.size()));
+            long start = System.nanoTime();
+            try {
+                List<Object> values = redis(batch.get(0), "get",
+                        () -> redisTemplate.opsForValue().multiGet(batch), () -> null);
+                // Latência registrada uma vez por lote (um MGET), não uma vez por chave
+                cacheNames(batch).forEach(name -> cacheMetrics.forCache(name).recordGet(start));
+                for (int i = 0; i < batch.size(); i++) {
+                    String key = batch.get(i);
+                    CacheMetrics.Meters meters = cacheMetrics.forCache(cacheName(key));
+                    Object cached = values != null ? values.get(i) : null;
+                    if (cached == null) {
+                        meters.miss();
+                    } else {
+                        meters.hit(false);
+                        result.put(key, objectMapper.convertValue(cached, clazz));
+                    }
+                }
+            } catch (Exception e) {
+                // Lote inteiro tratado como miss
+                logger.error("Erro ao buscar {} chaves do cache: {}", batch.size(), e.getMessage());
+            }
         }
+        return result;
+    }
+
+    /**
+     * Salva vários valores com TTL padrão
+     */
+    public <T> void setMany(Map<String, T> values) {
+        setMany(values, defaultTtl);
     }
 
     /**
-     * Deleta uma chave específica
+     * Salva vários valores com SET ... EX em pipeline (um round trip por lote de MULTI_KEY_BATCH_SIZE)
+     * @param values Mapa chave -> valor
+     * @param ttlSeconds TTL em segundos
+     */
+    public <T> void setMany(Map<String, T> values, long ttlSeconds) {
+        List<Map.Entry<String, T>> entries = new ArrayList<>(values.entrySet());
+
+        for (int from = 0; from < entries.size(); from += MULTI_KEY_BATCH_SIZE) {
+            List<Map.Entry<String, T>> batch = entries.subList(from, Math.min(from + MULTI_KEY_BATCH_SIZE, entries.size()));
+            long start = System.nanoTime();
+            try {
+                redis(batch.get(0).getKey(), "put", () -> redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        for (Map.Entry<String, T> entry : batch) {
+                            ops.opsForValue().set(entry.getKey(), entry.getValue(), ttlSeconds, TimeUnit.SECONDS);
+                        }
+                        return null;
+                    }
+                }), () -> null);
+                cacheNames(batch.stream().map(Map.Entry::getKey).toList())
+                        .forEach(name -> cacheMetrics.forCache(name).recordPut(start));
+            } catch (Exception e) {
+                logger.error("Erro ao salvar {} chaves no cache: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Versão em lote de getOrCompute com TTL padrão
+     */
+    public <I, T> Map<I, T> getOrComputeMany(Collection<I> ids, Function<I, String> keyMapper, Class<T> clazz,
+                                            Function<Collection<I>, Map<I, T>> loader) {
+        return getOrComputeMany(ids, keyMapper, clazz, loader, defaultTtl);
+    }
+
+    /**
+     * Versão em lote de getOrCompute: um MGET para todos os ids, uma única chamada ao loader
+     * com os ids em miss (ex: findAllById) e um pipeline gravando o que foi carregado.
+     * @param ids Identificadores (ex: ids de produtos)
+     * @param keyMapper Converte um id em chave do cache (ex: id -> "products:" + id)
+     * @param clazz Classe dos objetos
+     * @param loader Carrega os ids em miss; ids ausentes no retorno ficam fora do resultado
+     * @param ttlSeconds TTL em segundos
+     * @return Mapa id -> valor, na ordem dos ids
+     */
+    public <I, T> Map<I, T> getOrComputeMany(Collection<I> ids, Function<I, String> keyMapper, Class<T> clazz,
+                                            Function<Collection<I>, Map<I, T>> loader, long ttlSeconds) {
+        Map<I, String> keys = new LinkedHashMap<>();
+        ids.forEach(id -> keys.put(id, keyMapper.apply(id)));
+
+        Map<String, T> cached = getMany(keys.values(), clazz);
+
+        List<I> missing = new ArrayList<>();
+        keys.forEach((id, key) -> {
+            if (!cached.containsKey(key)) {
+                missing.add(id);
+            }
+        });
+
+        Map<I, T> loaded = missing.isEmpty() ? Map.of() : loader.apply(missing);
+        if (!loaded.isEmpty()) {
+            Map<String, T> toCache = new LinkedHashMap<>();
+            loaded.forEach((id, value) -> {
+                if (value != null) {
+                    toCache.put(keyMapper.apply(id), value);
+                }
+            });
+            setMany(toCache, ttlSeconds);
+        }
+
+        Map<I, T> result = new LinkedHashMap<>();
+        keys.forEach((id, key) -> {
+            T value = cached.containsKey(key) ? cached.get(key) : loaded.get(id);
+            if (value != null) {
+                result.put(id, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Deleta uma chave específica. Com o Redis indisponível a remoção fica pendente
+     * e é reaplicada quando o circuito fechar, para não deixar o valor antigo no cache.
      * @param key Chave
      */
     public void delete(String key) {
+        CacheMetrics.Meters meters = cacheMetrics.forCache(cacheName(key));
         try {
-            redisTemplate.delete(key);
-            logger.info("Cache deletado: {}", key);
+            redis(key, "evict", () -> redisTemplate.delete(key), () -> {
+                deferDelete(key);
+                return false;
+            });
+            meters.eviction();
         } catch (Exception e) {
             logger.error("Erro ao deletar cache [{}]: {}", key, e.getMessage());
         }
     }
 
     /**
-     * Deleta múltiplas chaves por padrão (wildcards)
+     * Reaplica as remoções feitas com o circuito aberto (chamado na thread do probe)
+     */
+    void replayPendingDeletes() {
+        for (String pattern : List.copyOf(pendingPatterns)) {
+            pendingPatterns.remove(pattern);
+            deletePattern(pattern);
+        }
+        for (String key : List.copyOf(pendingDeletes)) {
+            pendingDeletes.remove(key);
+            delete(key);
+        }
+    }
+
+    private void deferDelete(String key) {
+        if (pendingDeletes.size() < MAX_PENDING_DELETES) {
+            pendingDeletes.add(key);
+            return;
+        }
+        int separator = key.indexOf(':');
+        String pattern = separator > 0 ? key.substring(0, separator) + ":*" : key;
+        if (pendingPatterns.add(pattern)) {
+            logger.warn("Muitas remoções pendentes, {} será removido por inteiro quando o Redis voltar", pattern);
+        }
+    }
+
+    /**
+     * Deleta múltiplas chaves por padrão (wildcards).
+     * Usa SCAN incremental + UNLINK em lotes em vez de KEYS: cada comando é limitado
+     * a SCAN_BATCH_SIZE chaves e a liberação de memória ocorre fora da thread principal do Redis.
      * @param pattern Padrão (ex: "products:*", "sales:user:123:*")
      */
     public void deletePattern(String pattern) {
-        try {
-            Set<String> keys = redisTemplate.keys(pattern);
-            
-            if (keys == null || keys.isEmpty()) {
-                logger.info("Nenhuma chave encontrada para padrão: {}", pattern);
-                return;
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(pattern)
+                .count(SCAN_BATCH_SIZE)
+                .build();
+
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    deleted += unlink(batch);
+                    batch.clear();
+                }
             }
+            deleted += unlink(batch);
 
-            redisTemplate.delete(keys);
-            logger.info("{} chaves deletadas [{}]", keys.size(), pattern);
+            logger.info("{} chaves deletadas [{}]", deleted, pattern);
         } catch (Exception e) {
             logger.error("Erro ao deletar padrão [{}]: {}", pattern, e.getMessage());
         }
     }
 
+    private long unlink(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long removed = redisTemplate.unlink(keys);
+        return removed != null ? removed : 0;
+    }
+
     /**
      * Verifica se uma chave existe
      * @param key Chave
@@ -179,39 +431,127 @@ public class CacheService {
      * @param supplier Função que busca os dados (se não estiver em cache)
      * @return Dados (do cache ou da função)
      */
-    public <T> T getOrCompute(String key, Class<T> clazz, java.util.function.Supplier<T> supplier) {
-        T cached = get(key, clazz);
-        
-        if (cached != null) {
-            return cached;
+    public <T> T getOrCompute(String key, Class<T> clazz, Supplier<T> supplier) {
+        return getOrCompute(key, clazz, supplier, defaultTtl);
+    }
+
+    /**
+     * Helper: busca do cache ou executa função e salva (com TTL customizado).
+     * Misses concorrentes executam o supplier uma única vez (single-flight + lease no Redis)
+     * e chaves quentes são renovadas antes de expirar por um único chamador (XFetch).
+     */
+    public <T> T getOrCompute(String key, Class<T> clazz, Supplier<T> supplier, long ttlSeconds) {
+        CacheMetrics.Meters meters = cacheMetrics.forCache(cacheName(key));
+        long start = System.nanoTime();
+        CachedEntry entry = getWithExpiry(key);
+        meters.recordGet(start);
+
+        if (entry.value() == null) {
+            meters.miss();
+        } else {
+            meters.hit(false);
+            T cached = objectMapper.convertValue(entry.value(), clazz);
+            if (!StampedeGuard.shouldRefreshEarly(entry.ttlMillis(), entry.deltaMillis())) {
+                return cached;
+            }
+
+            // Renovação antecipada: só quem obtém o lease recalcula; os demais seguem com o valor atual
+            String token = stampedeGuard.tryLease(key);
+            if (token == null) {
+                return cached;
+            }
+            try {
+                return compute(key, supplier, ttlSeconds);
+            } finally {
+                stampedeGuard.release(key, token);
+            }
         }
 
-        // Não está em cache, busca os dados
+        return stampedeGuard.computeOnce(key, () -> get(key, clazz), () -> compute(key, supplier, ttlSeconds));
+    }
+
+    private <T> T compute(String key, Supplier<T> supplier, long ttlSeconds) {
+        long start = System.nanoTime();
         T data = supplier.get();
-        
+        long deltaMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
         if (data != null) {
-            set(key, data);
+            set(key, data, ttlSeconds);
+            try {
+                redis(key, "put", () -> {
+                    redisTemplate.opsForValue().set(key + DELTA_SUFFIX, deltaMillis, ttlSeconds, TimeUnit.SECONDS);
+                    return null;
+                }, () -> null);
+            } catch (Exception e) {
+                logger.error("Erro ao salvar tempo de cálculo [{}]: {}", key, e.getMessage());
+            }
         }
 
         return data;
     }
 
     /**
-     * Helper: busca do cache ou executa função e salva (com TTL customizado)
+     * Busca valor, TTL restante e tempo do último cálculo em um único round trip (pipeline)
      */
-    public <T> T getOrCompute(String key, Class<T> clazz, java.util.function.Supplier<T> supplier, long ttlSeconds) {
-        T cached = get(key, clazz);
-        
-        if (cached != null) {
-            return cached;
-        }
+    private CachedEntry getWithExpiry(String key) {
+        try {
+            List<Object> results = redis(key, "get", () -> redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    ops.opsForValue().get(key);
+                    ops.getExpire(key, TimeUnit.MILLISECONDS);
+                    ops.opsForValue().get(key + DELTA_SUFFIX);
+                    return null;
+                }
+            }), () -> null);
+            if (results == null) {
+                return new CachedEntry(null, -1, 0);
+            }
 
-        T data = supplier.get();
-        
-        if (data != null) {
-            set(key, data, ttlSeconds);
+            Object value = results.get(0);
+            long ttlMillis = results.get(1) instanceof Number ttl ? ttl.longValue() : -1;
+            long deltaMillis = results.get(2) instanceof Number delta ? delta.longValue() : 0;
+            return new CachedEntry(value, ttlMillis, deltaMillis);
+        } catch (Exception e) {
+            logger.error("Erro ao buscar cache [{}]: {}", key, e.getMessage());
+            return new CachedEntry(null, -1, 0);
         }
+    }
 
-        return data;
+    /**
+     * Operação no Redis via circuit breaker: com o circuito aberto (ou em falha de acesso) retorna o fallback
+     * na hora, sem esperar o timeout. Falhas contam em cache.redis.errors.
+     */
+    private <T> T redis(String key, String operation, Supplier<T> call, Supplier<T> fallback) {
+        return circuitBreaker.execute(() -> {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                cacheMetrics.forCache(cacheName(key)).error(operation);
+                throw e;
+            }
+        }, fallback);
+    }
+
+    /**
+     * Nome usado nas métricas: prefixo da chave até o primeiro ":" (ex: "sales:user:123" -> "sales")
+     */
+    private String cacheName(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(0, separator) : "default";
+    }
+
+    /**
+     * Nomes de cache distintos de um lote (normalmente um só)
+     */
+    private Set<String> cacheNames(List<String> keys) {
+        Set<String> names = new LinkedHashSet<>();
+        keys.forEach(key -> names.add(cacheName(key)));
+        return names;
+    }
+
+    private record CachedEntry(Object value, long ttlMillis, long deltaMillis) {
     }
-}
\ No newline at end of file
+}
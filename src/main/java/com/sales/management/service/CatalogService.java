@@ -0,0 +1,137 @@
+package com.sales.management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sales.management.model.dto.response.CatalogSyncResponse;
+import com.sales.management.model.dto.response.ProductResponse;
+import com.sales.management.repository.ProductDeletionRepository;
+import com.sales.management.repository.ProductRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sincronização do catálogo para terminais (PDV).
+ * A versão do catálogo é o maior updatedAt/deletedAt em epoch millis: muda a cada escrita em produtos.
+ * Sem "since" o terminal recebe o snapshot completo, gerado uma vez por versão e guardado no cache já
+ * comprimido; com "since" recebe só os produtos alterados e os ids desativados desde então.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+
+    static final String CACHE_NAME = "catalog";
+
+    /**
+     * Margem aplicada ao "since": cobre transações que gravaram updatedAt antes de uma sincronização
+     * mas só comitaram depois dela. Reenviar um produto é inofensivo (upsert no terminal).
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final ProductRepository productRepository;
+    private final ProductDeletionRepository productDeletionRepository;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public long getCatalogVersion() {
+        LocalDateTime lastUpdated = productRepository.findLastUpdatedAt();
+        LocalDateTime lastDeleted = productDeletionRepository.findLastDeletedAt();
+        return Math.max(toVersion(lastUpdated), toVersion(lastDeleted));
+    }
+
+    /**
+     * Catálogo ativo completo como JSON gzip; regenerado na primeira requisição após uma escrita
+     */
+    @Cacheable(value = CACHE_NAME, key = "#version", sync = true)
+    @Transactional(readOnly = true)
+    public Snapshot getSnapshot(long version) {
+        List<ProductResponse> products = productRepository.findByActiveTrueOrderByIdAsc().stream()
+                .map(productService::mapToResponse)
+                .toList();
+
+        CatalogSyncResponse body = CatalogSyncResponse.builder()
+                .version(version)
+                .full(true)
+                .products(products)
+                .deletedIds(List.of())
+                .build();
+        try {
+            return new Snapshot(version, gzip(objectMapper.writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao gerar snapshot do catálogo", e);
+        }
+    }
+
+    /**
+     * Produtos ativos alterados e produtos desativados desde a versão informada
+     */
+    @Transactional(readOnly = true)
+    public CatalogSyncResponse getChangesSince(long since, long version) {
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault())
+                .minus(SYNC_OVERLAP);
+
+        List<ProductResponse> products = productRepository.findByActiveTrueAndUpdatedAtAfter(from).stream()
+                .map(productService::mapToResponse)
+                .toList();
+
+        return CatalogSyncResponse.builder()
+                .version(version)
+                .full(false)
+                .products(products)
+                .deletedIds(productDeletionRepository.findInactiveProductIdsDeletedAfter(from))
+                .build();
+    }
+
+    private long toVersion(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+
+    private byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Snapshot do catálogo em JSON comprimido com gzip
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Snapshot {
+        private long version;
+        private byte[] gzippedJson;
+
+        /**
+         * JSON descomprimido, para clientes que não aceitam gzip
+         */
+        public byte[] json() {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzippedJson))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.sales.management.model.dto.response.CustomerResponse;
 import com.sales.management.model.entity.Customer;
 import com.sales.management.model.entity.User;
 import com.sales.management.repository.CustomerRepository;
+import com.sales.management.repository.VersionStamp;
 import com.sales.management.util.Constants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
@@ -18,6 +19,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
@@ -89,6 +92,17 @@ public class CustomerService {
                 .map(this::mapToResponse);
     }
 
+    /**
+     * updatedAt do cliente (null se não existir), usado no ETag sem carregar a entidade
+     */
+    public LocalDateTime getCustomerVersion(Long id) {
+        return customerRepository.findUpdatedAtById(id).orElse(null);
+    }
+
+    public VersionStamp getCustomersVersion() {
+        return customerRepository.findVersionStamp();
+    }
+
     private CustomerResponse mapToResponse(Customer customer) {
         return CustomerResponse.builder()
                 .id(customer.getId())
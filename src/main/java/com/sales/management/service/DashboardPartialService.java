@@ -0,0 +1,159 @@
+package com.sales.management.service;
+
+import com.sales.management.model.entity.Sale;
+import com.sales.management.model.entity.SaleItem;
+import com.sales.management.model.enums.PaymentStatus;
+import com.sales.management.model.enums.SaleStatus;
+import com.sales.management.repository.SaleRepository;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agregados parciais do dashboard por dia. Dias inteiros ficam no cache "dashboardDays"
+ * (chave "data_vendedor") e são reaproveitados por qualquer intervalo que os contenha;
+ * só os dias das pontas, cobertos em parte, são calculados a cada requisição.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardPartialService {
+
+    public static final String CACHE_NAME = "dashboardDays";
+
+    private final SaleRepository saleRepository;
+    private final CacheManager cacheManager;
+
+    /**
+     * Agregado de um dia inteiro
+     */
+    @Cacheable(value = CACHE_NAME, key = "#day + '_' + #sellerId", sync = true)
+    @Transactional(readOnly = true)
+    public Partial getDay(LocalDate day, Long sellerId) {
+        return compute(day, day.atStartOfDay(), day.atTime(LocalTime.MAX), sellerId);
+    }
+
+    /**
+     * Agregado de um trecho de um dia (pontas do intervalo), sem cache
+     */
+    @Transactional(readOnly = true)
+    public Partial compute(LocalDate day, LocalDateTime start, LocalDateTime end, Long sellerId) {
+        List<Sale> sales = (sellerId != null)
+                ? saleRepository.findBySellerIdAndSaleDateBetween(sellerId, start, end)
+                : saleRepository.findBySaleDateBetween(start, end);
+
+        Partial partial = Partial.empty(day);
+        for (Sale sale : sales) {
+            partial.totalSalesAmount = partial.totalSalesAmount.add(sale.getFinalAmount());
+            partial.salesCount++;
+            if (sale.getPayment().getPaymentStatus() == PaymentStatus.PENDING) {
+                partial.pendingPaymentsAmount = partial.pendingPaymentsAmount.add(sale.getFinalAmount());
+                partial.pendingPaymentsCount++;
+            }
+            partial.salesByPaymentMethod.merge(sale.getPayment().getPaymentMethod().toString(), 1L, Long::sum);
+
+            if (sale.getStatus() != SaleStatus.CANCELLED) {
+                for (SaleItem item : sale.getItems()) {
+                    partial.products.merge(item.getProduct().getId(),
+                            new ProductTotals(item.getProduct().getName(), item.getQuantity(), item.getTotalPrice()),
+                            ProductTotals::add);
+                }
+            }
+        }
+        return partial;
+    }
+
+    /**
+     * Remove os agregados do dia da venda (do vendedor e geral) após o commit da transação corrente
+     */
+    public void evictDay(LocalDateTime saleDate, Long sellerId) {
+        if (saleDate == null) {
+            return;
+        }
+        LocalDate day = saleDate.toLocalDate();
+        Runnable evict = () -> {
+            Cache cache = cacheManager.getCache(CACHE_NAME);
+            if (cache != null) {
+                cache.evict(day + "_" + sellerId);
+                cache.evict(day + "_null");
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Partial {
+        private LocalDate date;
+        private BigDecimal totalSalesAmount;
+        private long salesCount;
+        private BigDecimal pendingPaymentsAmount;
+        private long pendingPaymentsCount;
+        /**
+         * Totais por produto, só de vendas não canceladas
+         */
+        private Map<Long, ProductTotals> products;
+        private Map<String, Long> salesByPaymentMethod;
+
+        public static Partial empty(LocalDate date) {
+            return new Partial(date, BigDecimal.ZERO, 0, BigDecimal.ZERO, 0, new HashMap<>(), new HashMap<>());
+        }
+
+        /**
+         * Acumula outro agregado neste
+         */
+        public Partial add(Partial other) {
+            totalSalesAmount = totalSalesAmount.add(other.totalSalesAmount);
+            salesCount += other.salesCount;
+            pendingPaymentsAmount = pendingPaymentsAmount.add(other.pendingPaymentsAmount);
+            pendingPaymentsCount += other.pendingPaymentsCount;
+            other.products.forEach((id, totals) -> products.merge(id, totals, ProductTotals::add));
+            other.salesByPaymentMethod.forEach((method, count) -> salesByPaymentMethod.merge(method, count, Long::sum));
+            return this;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductTotals {
+        private String name;
+        private long quantity;
+        private BigDecimal revenue;
+
+        /**
+         * Soma sem alterar as instâncias (podem estar no L1 do cache)
+         */
+        public ProductTotals add(ProductTotals other) {
+            return new ProductTotals(name, quantity + other.quantity, revenue.add(other.revenue));
+        }
+    }
+}
@@ -1,30 +1,50 @@
 package com.sales.management.service;
 
+import com.sales.management.cache.CacheTagRegistry;
+import com.sales.management.cache.TwoLevelCache;
 import com.sales.management.exception.ResourceNotFoundException;
 import com.sales.management.model.dto.request.CreateProductRequest;
 import com.sales.management.model.dto.request.UpdateProductRequest;
 import com.sales.management.model.dto.response.ProductResponse;
 import com.sales.management.model.entity.Product;
+import com.sales.management.model.entity.ProductDeletion;
+import com.sales.management.repository.ProductDeletionRepository;
 import com.sales.management.repository.ProductRepository;
+import com.sales.management.repository.VersionStamp;
 import com.sales.management.util.Constants;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    static final String CACHE_NAME = "products";
+    static final String CATEGORIES_TAG = "categories";
+
     private final ProductRepository productRepository;
+    private final ProductDeletionRepository productDeletionRepository;
+    private final CacheTagRegistry cacheTagRegistry;
+    private final CacheManager cacheManager;
+    private final CacheService cacheService;
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public ProductResponse createProduct(CreateProductRequest request) {
         Product product = Product.builder()
                 .name(request.getName())
@@ -37,15 +57,19 @@ public class ProductService {
                 .build();
 
         product = productRepository.save(product);
+        // Produto novo não tem entrada própria em cache; só a lista de categorias pode mudar
+        cacheTagRegistry.evictAfterCommit(CACHE_NAME, CATEGORIES_TAG);
         return mapToResponse(product);
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public ProductResponse updateProduct(Long id, UpdateProductRequest request) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.PRODUCT_NOT_FOUND));
 
+        String previousCategory = product.getCategory();
+        Boolean previousActive = product.getActive();
+
         if (request.getName() != null) {
             product.setName(request.getName());
         }
@@ -69,23 +93,41 @@ public class ProductService {
         }
 
         product = productRepository.save(product);
+        if (Boolean.TRUE.equals(previousActive) && !Boolean.TRUE.equals(product.getActive())) {
+            logDeletion(id);
+        }
+
+        boolean categoriesChanged = !Objects.equals(previousCategory, product.getCategory())
+                || !Objects.equals(previousActive, product.getActive());
+        if (categoriesChanged) {
+            cacheTagRegistry.evictAfterCommit(CACHE_NAME, productTag(id), CATEGORIES_TAG);
+        } else {
+            cacheTagRegistry.evictAfterCommit(CACHE_NAME, productTag(id));
+        }
+        evictSaleProductAfterCommit(id);
         return mapToResponse(product);
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.PRODUCT_NOT_FOUND));
         
+        if (Boolean.TRUE.equals(product.getActive())) {
+            logDeletion(id);
+        }
         product.setActive(false);
         productRepository.save(product);
+        cacheTagRegistry.evictAfterCommit(CACHE_NAME, productTag(id), CATEGORIES_TAG);
+        evictSaleProductAfterCommit(id);
     }
 
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = CACHE_NAME, key = "#id")
     public ProductResponse getProductById(Long id) {
         Product product = productRepository.findByIdAndActiveTrue(id)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.PRODUCT_NOT_FOUND));
+        // Só executa em cache miss, ou seja, quando a entrada vai ser gravada
+        cacheTagRegistry.register(CACHE_NAME, id, productTag(id));
         return mapToResponse(product);
     }
 
@@ -104,12 +146,82 @@ public class ProductService {
                 .map(this::mapToResponse);
     }
 
-    @Cacheable(value = "products", key = "'categories'")
+    /**
+     * updatedAt do produto ativo (null se não existir), usado no ETag sem carregar a entidade
+     */
+    public LocalDateTime getProductVersion(Long id) {
+        return productRepository.findActiveUpdatedAtById(id).orElse(null);
+    }
+
+    public VersionStamp getProductsVersion() {
+        return productRepository.findActiveVersionStamp();
+    }
+
+    @Cacheable(value = CACHE_NAME, key = "'categories'")
     public List<String> getAllCategories() {
+        cacheTagRegistry.register(CACHE_NAME, "categories", CATEGORIES_TAG);
         return productRepository.findAllCategories();
     }
 
-    private ProductResponse mapToResponse(Product product) {
+    /**
+     * Warm-up: grava no cache os produtos ativos alterados mais recentemente, com uma única consulta.
+     * Valores e tags vão ao Redis em pipeline, sem invalidar o L1 dos outros nós
+     * @return quantidade de produtos carregados
+     */
+    @Transactional(readOnly = true)
+    public int warmUpCache(int limit) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return 0;
+        }
+
+        List<Product> products = productRepository
+                .findByActiveTrue(PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "updatedAt")))
+                .getContent();
+        Map<Long, ProductResponse> values = new LinkedHashMap<>();
+        Map<Long, String> tags = new LinkedHashMap<>();
+        for (Product product : products) {
+            values.put(product.getId(), mapToResponse(product));
+            tags.put(product.getId(), productTag(product.getId()));
+        }
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.putAllQuietly(values);
+        } else {
+            values.forEach(cache::put);
+        }
+        cacheTagRegistry.registerAll(CACHE_NAME, tags);
+        return products.size();
+    }
+
+    /**
+     * Registra a desativação para que terminais removam o produto na próxima sincronização
+     */
+    private void logDeletion(Long id) {
+        productDeletionRepository.save(ProductDeletion.builder().productId(id).build());
+    }
+
+    /**
+     * Remove a cópia usada pelas listagens de vendas (SaleService) depois do commit
+     */
+    private void evictSaleProductAfterCommit(Long id) {
+        String key = SaleService.productCacheKey(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheService.delete(key);
+                }
+            });
+        } else {
+            cacheService.delete(key);
+        }
+    }
+
+    private String productTag(Long id) {
+        return "product:" + id;
+    }
+
+    ProductResponse mapToResponse(Product product) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .name(product.getName())
@@ -1,109 +1,97 @@
 package com.sales.management.service;
 
+import com.sales.management.cache.TwoLevelCache;
 import com.sales.management.model.dto.response.DashboardResponse;
-import com.sales.management.model.entity.Sale;
-import com.sales.management.model.entity.SaleItem;
-import com.sales.management.model.enums.PaymentStatus;
-import com.sales.management.model.enums.SaleStatus;
-import com.sales.management.repository.SaleRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ReportService {
 
-    private final SaleRepository saleRepository;
+    private final DashboardPartialService dashboardPartialService;
 
-    @Cacheable(value = "dashboard", key = "#startDate + '_' + #endDate + '_' + #sellerId")
+    /**
+     * Métricas do intervalo montadas a partir de agregados por dia: dias inteiros vêm do cache
+     * (compartilhados entre intervalos diferentes) e só os trechos das pontas são calculados
+     */
+    @Transactional(readOnly = true)
     public DashboardResponse getDashboardMetrics(LocalDateTime startDate, LocalDateTime endDate, Long sellerId) {
-        List<Sale> sales;
-        
-        if (sellerId != null) {
-            sales = saleRepository.findBySellerIdAndSaleDateBetween(sellerId, startDate, endDate);
-        } else {
-            sales = saleRepository.findBySaleDateBetween(startDate, endDate);
-        }
-
-        BigDecimal totalSalesAmount = sales.stream()
-                .map(Sale::getFinalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Long salesCount = (long) sales.size();
-
-        BigDecimal pendingPaymentsAmount = sales.stream()
-                .filter(s -> s.getPayment().getPaymentStatus() == PaymentStatus.PENDING)
-                .map(Sale::getFinalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Long pendingPaymentsCount = sales.stream()
-                .filter(s -> s.getPayment().getPaymentStatus() == PaymentStatus.PENDING)
-                .count();
+        List<DashboardPartialService.Partial> partials = partials(startDate, endDate, sellerId);
+        DashboardPartialService.Partial total = merge(partials);
 
         // Calcular produtos mais vendidos
-        List<DashboardResponse.TopProductDTO> topProducts = calculateTopProducts(sales);
+        List<DashboardResponse.TopProductDTO> topProducts = calculateTopProducts(total);
 
         // Crescimento vs janela anterior equivalente
         applyGrowth(topProducts, startDate, endDate, sellerId);
 
-        // Vendas por método de pagamento
-        Map<String, Long> salesByPaymentMethod = sales.stream()
-                .collect(Collectors.groupingBy(
-                    s -> s.getPayment().getPaymentMethod().toString(),
-                    Collectors.counting()
-                ));
-
         // Tendência de vendas (por dia)
-        List<DashboardResponse.SalesTrendDTO> salesTrend = calculateSalesTrend(sales);
+        List<DashboardResponse.SalesTrendDTO> salesTrend = calculateSalesTrend(partials);
 
         return DashboardResponse.builder()
-                .totalSalesAmount(totalSalesAmount)
-                .salesCount(salesCount)
-                .pendingPaymentsAmount(pendingPaymentsAmount)
-                .pendingPaymentsCount(pendingPaymentsCount)
+                .totalSalesAmount(total.getTotalSalesAmount())
+                .salesCount(total.getSalesCount())
+                .pendingPaymentsAmount(total.getPendingPaymentsAmount())
+                .pendingPaymentsCount(total.getPendingPaymentsCount())
                 .topProducts(topProducts)
-                .salesByPaymentMethod(salesByPaymentMethod)
+                .salesByPaymentMethod(total.getSalesByPaymentMethod())
                 .salesTrend(salesTrend)
                 .build();
     }
 
-    private List<DashboardResponse.TopProductDTO> calculateTopProducts(List<Sale> sales) {
-        return sales.stream()
-                .filter(s -> s.getStatus() != SaleStatus.CANCELLED)
-                .flatMap(s -> s.getItems().stream())
-                .collect(Collectors.groupingBy(
-                        item -> item.getProduct().getId(),
-                        Collectors.collectingAndThen(Collectors.toList(), items -> {
-                            long qty = items.stream().mapToLong(SaleItem::getQuantity).sum();
-                            BigDecimal revenue = items.stream()
-                                    .map(SaleItem::getTotalPrice)
-                                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                            return new Object[]{
-                                    items.get(0).getProduct().getId(),
-                                    items.get(0).getProduct().getName(),
-                                    qty,
-                                    revenue
-                            };
-                        })
-                ))
-                .values().stream()
-                .sorted(Comparator.comparing((Object[] arr) -> (BigDecimal) arr[3]).reversed())
+    /**
+     * Divide o intervalo em trechos alinhados por dia
+     */
+    private List<DashboardPartialService.Partial> partials(LocalDateTime startDate, LocalDateTime endDate, Long sellerId) {
+        List<DashboardPartialService.Partial> partials = new ArrayList<>();
+        for (LocalDate day = startDate.toLocalDate(); !day.isAfter(endDate.toLocalDate()); day = day.plusDays(1)) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            LocalDateTime dayEnd = day.atTime(LocalTime.MAX);
+            LocalDateTime from = startDate.isAfter(dayStart) ? startDate : dayStart;
+            LocalDateTime to = endDate.isBefore(dayEnd) ? endDate : dayEnd;
+
+            if (from.equals(dayStart) && to.equals(dayEnd)) {
+                partials.add(dashboardPartialService.getDay(day, sellerId));
+            } else {
+                partials.add(dashboardPartialService.compute(day, from, to, sellerId));
+            }
+        }
+        return partials;
+    }
+
+    /**
+     * Soma os agregados num novo objeto
+     */
+    private DashboardPartialService.Partial merge(List<DashboardPartialService.Partial> partials) {
+        DashboardPartialService.Partial total = DashboardPartialService.Partial.empty(null);
+        partials.forEach(total::add);
+        return total;
+    }
+
+    private List<DashboardResponse.TopProductDTO> calculateTopProducts(DashboardPartialService.Partial total) {
+        return total.getProducts().entrySet().stream()
+                .sorted(Comparator.comparing(
+                        (Map.Entry<Long, DashboardPartialService.ProductTotals> entry) -> entry.getValue().getRevenue())
+                        .reversed())
                 .limit(5)
-                .map(arr -> DashboardResponse.TopProductDTO.builder()
-                        .productId((Long) arr[0])
-                        .productName((String) arr[1])
-                        .quantity((Long) arr[2])
-                        .revenue((BigDecimal) arr[3])
+                .map(entry -> DashboardResponse.TopProductDTO.builder()
+                        .productId(entry.getKey())
+                        .productName(entry.getValue().getName())
+                        .quantity(entry.getValue().getQuantity())
+                        .revenue(entry.getValue().getRevenue())
                         .growth(BigDecimal.ZERO)
                         .build())
                 .toList();
@@ -119,24 +107,18 @@ public class ReportService {
             return;
         }
 
-        LocalDateTime prevEnd = startDate;
-        LocalDateTime prevStart = startDate.minus(Duration.between(startDate, endDate));
-
-        List<Sale> prevSales = (sellerId != null)
-                ? saleRepository.findBySellerIdAndSaleDateBetween(sellerId, prevStart, prevEnd)
-                : saleRepository.findBySaleDateBetween(prevStart, prevEnd);
+        // Janela de mesma duração terminando logo antes de startDate: intervalos de dias inteiros
+        // (00:00 a 23:59:59.999999999) continuam alinhados e usam só os dias em cache
+        LocalDateTime prevEnd = startDate.minusNanos(1);
+        LocalDateTime prevStart = prevEnd.minus(Duration.between(startDate, endDate));
 
-        Map<Long, BigDecimal> prevRevenueByProduct = prevSales.stream()
-                .filter(s -> s.getStatus() != SaleStatus.CANCELLED)
-                .flatMap(s -> s.getItems().stream())
-                .collect(Collectors.groupingBy(
-                        i -> i.getProduct().getId(),
-                        Collectors.mapping(SaleItem::getTotalPrice,
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-                ));
+        // A idade dos dias da janela anterior não entra nos cabeçalhos X-Cache-Age/X-Cache-Stale da resposta
+        Map<Long, DashboardPartialService.ProductTotals> prevByProduct = TwoLevelCache.ignoringAge(
+                () -> merge(partials(prevStart, prevEnd, sellerId)).getProducts());
 
         topProducts.forEach(tp -> {
-            BigDecimal prev = prevRevenueByProduct.getOrDefault(tp.getProductId(), BigDecimal.ZERO);
+            DashboardPartialService.ProductTotals prevTotals = prevByProduct.get(tp.getProductId());
+            BigDecimal prev = prevTotals != null ? prevTotals.getRevenue() : BigDecimal.ZERO;
             BigDecimal growth;
             if (prev.compareTo(BigDecimal.ZERO) == 0) {
                 growth = BigDecimal.ZERO;
@@ -149,8 +131,14 @@ public class ReportService {
         });
     }
 
-    private List<DashboardResponse.SalesTrendDTO> calculateSalesTrend(List<Sale> sales) {
-        // Implementar lógica de agregação por data
-        return List.of();
+    private List<DashboardResponse.SalesTrendDTO> calculateSalesTrend(List<DashboardPartialService.Partial> partials) {
+        // Um ponto por dia, direto dos agregados parciais
+        return partials.stream()
+                .map(partial -> DashboardResponse.SalesTrendDTO.builder()
+                        .date(partial.getDate().toString())
+                        .amount(partial.getTotalSalesAmount())
+                        .count(partial.getSalesCount())
+                        .build())
+                .toList();
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.sales.management.exception.BusinessException;
 import com.sales.management.exception.ResourceNotFoundException;
 import com.sales.management.exception.UnauthorizedException;
 import com.sales.management.model.dto.request.CreateSaleRequest;
+import com.sales.management.model.dto.request.SaleItemRequest;
 import com.sales.management.model.dto.request.UpdateSaleRequest;
 import com.sales.management.model.dto.response.*;
 import com.sales.management.model.entity.*;
@@ -13,11 +14,13 @@ import com.sales.management.model.enums.SaleStatus;
 import com.sales.management.model.enums.UserRole;
 import com.sales.management.repository.*;
 import com.sales.management.util.Constants;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -25,8 +28,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -40,9 +51,16 @@ public class SaleService {
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
     private final ObjectMapper objectMapper;
+    private final DashboardPartialService dashboardPartialService;
+    private final CacheService cacheService;
+
+    /**
+     * TTL dos produtos resolvidos em lote nas listagens de vendas (removidos ao alterar o produto)
+     */
+    private static final long PRODUCT_CACHE_TTL = 600;
 
     @Transactional
-    @CacheEvict(value = {"dashboard", "sellerStats"}, allEntries = true)
+    @CacheEvict(value = "sellerStats", allEntries = true)
     public SaleResponse createSale(CreateSaleRequest request) {
         // Obter usuário logado
         User seller = getCurrentUser();
@@ -63,10 +81,19 @@ public class SaleService {
                 .notes(request.getNotes())
                 .build();
 
+        // Produtos de todos os itens numa consulta; id ausente ou inativo é PRODUCT_NOT_FOUND
+        Map<Long, Product> products = productRepository.findAllByIdInAndActiveTrue(request.getItems().stream()
+                        .map(SaleItemRequest::getProductId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
         // Adicionar items
         for (var itemRequest : request.getItems()) {
-            Product product = productRepository.findByIdAndActiveTrue(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException(Constants.PRODUCT_NOT_FOUND));
+            Product product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException(Constants.PRODUCT_NOT_FOUND);
+            }
 
             SaleItem item = SaleItem.builder()
                     .product(product)
@@ -100,12 +127,15 @@ public class SaleService {
 
         // Salvar
         sale = saleRepository.save(sale);
+        dashboardPartialService.evictDay(sale.getSaleDate(), seller.getId());
         
         // Audit: Log sale creation
         try {
-            String saleJson = objectMapper.writeValueAsString(sale);
-            auditLogService.createAuditLog("SALE", sale.getId(), "CREATE", null, saleJson);
-        } catch (Throwable e) {
+            JsonNode snapshot = auditSnapshot(sale);
+            auditLogService.recordChange("SALE", sale.getId(), "CREATE", null, snapshot);
+            // Base para reconstruir o estado do pagamento, que depois só recebe UPDATE
+            auditLogService.recordChange("PAYMENT", sale.getPayment().getId(), "CREATE", null, snapshot.get("payment"));
+        } catch (Exception e) {
             log.error("Error creating audit log for sale creation", e);
         }
         
@@ -113,7 +143,7 @@ public class SaleService {
     }
 
     @Transactional
-    @CacheEvict(value = {"dashboard", "sellerStats"}, allEntries = true)
+    @CacheEvict(value = "sellerStats", allEntries = true)
     public SaleResponse updateSale(Long id, UpdateSaleRequest request) {
         Sale sale = saleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.SALE_NOT_FOUND));
@@ -121,6 +151,9 @@ public class SaleService {
         // Validar autorização
         validateSaleAccess(sale);
 
+        // Estado antes da alteração, para o diff da auditoria
+        JsonNode before = auditSnapshot(sale);
+
         // Atualizar campos informados
         if (request.getStatus() != null) {
             sale.setStatus(request.getStatus());
@@ -133,13 +166,12 @@ public class SaleService {
         }
 
         Sale updatedSale = saleRepository.save(sale);
+        dashboardPartialService.evictDay(updatedSale.getSaleDate(), updatedSale.getSeller().getId());
 
         // Audit: Log sale update
         try {
-            String oldValue = objectMapper.writeValueAsString(sale);
-            String newValue = objectMapper.writeValueAsString(updatedSale);
-            auditLogService.createAuditLog("SALE", updatedSale.getId(), "UPDATE", oldValue, newValue);
-        } catch (Throwable e) {
+            auditLogService.recordChange("SALE", updatedSale.getId(), "UPDATE", before, auditSnapshot(updatedSale));
+        } catch (Exception e) {
             log.error("Error creating audit log for sale update", e);
         }
 
@@ -147,65 +179,50 @@ public class SaleService {
     }
 
     @Transactional
-    @CacheEvict(value = {"dashboard", "sellerStats"}, allEntries = true)
+    @CacheEvict(value = "sellerStats", allEntries = true)
     public void cancelSale(Long id) {
         Sale sale = saleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.SALE_NOT_FOUND));
 
         validateSaleAccess(sale);
 
-        SaleStatus previousStatus = sale.getStatus();
+        JsonNode before = auditSnapshot(sale);
         sale.setStatus(SaleStatus.CANCELLED);
         saleRepository.save(sale);
+        dashboardPartialService.evictDay(sale.getSaleDate(), sale.getSeller().getId());
         
         // Audit: Log sale cancellation
         try {
-            auditLogService.createAuditLog(
-                    "SALE",
-                    sale.getId(),
-                    "CANCEL",
-                    previousStatus.toString(),
-                    SaleStatus.CANCELLED.toString()
-            );
+            auditLogService.recordChange("SALE", sale.getId(), "CANCEL", before, auditSnapshot(sale));
         } catch (Exception e) {
             log.error("Error creating audit log for sale cancellation", e);
         }
     }
 
     @Transactional
-    @CacheEvict(value = {"dashboard", "sellerStats"}, allEntries = true)
+    @CacheEvict(value = "sellerStats", allEntries = true)
     public SaleResponse markPaymentAsPaid(Long id) {
         Sale sale = saleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.SALE_NOT_FOUND));
 
         validateSaleAccess(sale);
 
+        JsonNode before = auditSnapshot(sale);
         Payment payment = sale.getPayment();
-        PaymentStatus previousStatus = payment.getPaymentStatus();
         payment.setPaymentStatus(PaymentStatus.PAID);
         payment.setPaymentDate(LocalDateTime.now());
         sale.setStatus(SaleStatus.CONFIRMED);
 
         Sale updatedSale = saleRepository.save(sale);
+        dashboardPartialService.evictDay(updatedSale.getSaleDate(), updatedSale.getSeller().getId());
         
         // Audit: Log payment status change
         try {
-            auditLogService.createAuditLog(
-                    "PAYMENT",
-                    payment.getId(),
-                    "UPDATE",
-                    previousStatus.toString(),
-                    PaymentStatus.PAID.toString()
-            );
-            
+            JsonNode after = auditSnapshot(updatedSale);
+            auditLogService.recordChange("PAYMENT", payment.getId(), "UPDATE", before.get("payment"), after.get("payment"));
+
             // Also log sale status change if applicable
-            auditLogService.createAuditLog(
-                    "SALE",
-                    sale.getId(),
-                    "PAYMENT_RECEIVED",
-                    null,
-                    "Payment received at " + payment.getPaymentDate()
-            );
+            auditLogService.recordChange("SALE", sale.getId(), "PAYMENT_RECEIVED", before, after);
         } catch (Exception e) {
             log.error("Error creating audit log for payment status change", e);
         }
@@ -222,22 +239,45 @@ public class SaleService {
         return mapToResponse(sale);
     }
 
+    /**
+     * Versão da venda (maior updatedAt entre venda, vendedor, cliente, produtos e pagamento),
+     * validando o acesso sem carregar o grafo da venda. Null se a venda não existir.
+     */
+    public LocalDateTime getSaleVersion(Long id) {
+        return saleRepository.findVersionById(id)
+                .map(version -> {
+                    validateSaleAccess(version.getSellerId());
+                    return Stream.of(
+                                    version.getUpdatedAt(),
+                                    version.getSellerUpdatedAt(),
+                                    version.getCustomerUpdatedAt(),
+                                    version.getItemsUpdatedAt(),
+                                    version.getPaymentUpdatedAt())
+                            .filter(Objects::nonNull)
+                            .max(Comparator.naturalOrder())
+                            .orElse(null);
+                })
+                .orElse(null);
+    }
+
     public Page<SaleResponse> getMySales(Pageable pageable) {
         User user = getCurrentUser();
-        return saleRepository.findBySellerId(user.getId(), pageable)
-                .map(this::mapToResponse);
+        return mapToResponses(saleRepository.findBySellerId(user.getId(), pageable));
     }
 
     public Page<SaleResponse> getAllSales(Pageable pageable) {
-        return saleRepository.findAll(pageable)
-                .map(this::mapToResponse);
+        return mapToResponses(saleRepository.findAll(pageable));
     }
 
     public List<SaleResponse> getCustomerSalesInPeriod(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
-        return saleRepository.findCustomerSalesInPeriod(customerId, startDate, endDate)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(saleRepository.findCustomerSalesInPeriod(customerId, startDate, endDate));
+    }
+
+    /**
+     * Chave no Redis do produto resolvido em lote pelas listagens de vendas
+     */
+    static String productCacheKey(Long productId) {
+        return "saleProducts:" + productId;
     }
 
     private User getCurrentUser() {
@@ -247,6 +287,10 @@ public class SaleService {
     }
 
     private void validateSaleAccess(Sale sale) {
+        validateSaleAccess(sale.getSeller().getId());
+    }
+
+    private void validateSaleAccess(Long sellerId) {
         User currentUser = getCurrentUser();
         
         // Admin pode acessar tudo
@@ -255,12 +299,82 @@ public class SaleService {
         }
         
         // Vendedor só pode acessar suas próprias vendas
-        if (!sale.getSeller().getId().equals(currentUser.getId())) {
+        if (!sellerId.equals(currentUser.getId())) {
             throw new UnauthorizedException(Constants.UNAUTHORIZED_ACCESS);
         }
     }
 
+    /**
+     * Estado auditável da venda: campos próprios, ids das associações, itens e pagamento
+     * (sem o grafo de entidades, que é grande e cíclico)
+     */
+    private JsonNode auditSnapshot(Sale sale) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("id", sale.getId());
+        snapshot.put("saleDate", sale.getSaleDate());
+        snapshot.put("status", sale.getStatus());
+        snapshot.put("totalAmount", sale.getTotalAmount());
+        snapshot.put("discount", sale.getDiscount());
+        snapshot.put("finalAmount", sale.getFinalAmount());
+        snapshot.put("notes", sale.getNotes());
+        snapshot.put("sellerId", sale.getSeller().getId());
+        snapshot.put("customerId", sale.getCustomer().getId());
+        snapshot.put("items", sale.getItems().stream()
+                .map(item -> {
+                    Map<String, Object> itemSnapshot = new LinkedHashMap<>();
+                    itemSnapshot.put("productId", item.getProduct().getId());
+                    itemSnapshot.put("quantity", item.getQuantity());
+                    itemSnapshot.put("unitPrice", item.getUnitPrice());
+                    itemSnapshot.put("totalPrice", item.getTotalPrice());
+                    return itemSnapshot;
+                })
+                .toList());
+
+        Payment payment = sale.getPayment();
+        if (payment != null) {
+            Map<String, Object> paymentSnapshot = new LinkedHashMap<>();
+            paymentSnapshot.put("id", payment.getId());
+            paymentSnapshot.put("paymentMethod", payment.getPaymentMethod());
+            paymentSnapshot.put("paymentStatus", payment.getPaymentStatus());
+            paymentSnapshot.put("amount", payment.getAmount());
+            paymentSnapshot.put("paymentDate", payment.getPaymentDate());
+            snapshot.put("payment", paymentSnapshot);
+        }
+        return objectMapper.valueToTree(snapshot);
+    }
+
     private SaleResponse mapToResponse(Sale sale) {
+        return mapToResponse(sale, Map.of());
+    }
+
+    private Page<SaleResponse> mapToResponses(Page<Sale> sales) {
+        return new PageImpl<>(mapToResponses(sales.getContent()), sales.getPageable(), sales.getTotalElements());
+    }
+
+    /**
+     * Mapeia uma lista de vendas resolvendo os produtos dos itens em lote: um MGET no Redis
+     * e uma única consulta para os que não estão em cache, em vez de um acesso por produto
+     */
+    private List<SaleResponse> mapToResponses(List<Sale> sales) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        sales.stream()
+                .filter(sale -> sale.getItems() != null)
+                .flatMap(sale -> sale.getItems().stream())
+                .filter(item -> item.getProduct() != null)
+                .forEach(item -> productIds.add(item.getProduct().getId()));
+
+        Map<Long, ProductResponse> products = productIds.isEmpty() ? Map.of() : cacheService.getOrComputeMany(
+                productIds, SaleService::productCacheKey, ProductResponse.class,
+                missing -> productRepository.findAllById(missing).stream()
+                        .collect(Collectors.toMap(Product::getId, this::mapProductToResponse)),
+                PRODUCT_CACHE_TTL);
+
+        return sales.stream()
+                .map(sale -> mapToResponse(sale, products))
+                .collect(Collectors.toList());
+    }
+
+    private SaleResponse mapToResponse(Sale sale, Map<Long, ProductResponse> products) {
         User seller = sale.getSeller();
         Customer customer = sale.getCustomer();
         Payment payment = sale.getPayment();
@@ -299,7 +413,7 @@ public class SaleService {
                         .updatedAt(customer.getUpdatedAt())
                         .build())
                 .items(sale.getItems() == null ? List.of() : sale.getItems().stream()
-                        .map(this::mapItemToResponse)
+                        .map(item -> mapItemToResponse(item, products))
                         .collect(Collectors.toList()))
                 .paymentMethod(payment == null ? null : payment.getPaymentMethod())
                 .paymentStatus(payment == null ? null : payment.getPaymentStatus())
@@ -308,25 +422,30 @@ public class SaleService {
                 .build();
     }
 
-    private SaleItemResponse mapItemToResponse(SaleItem item) {
+    private SaleItemResponse mapItemToResponse(SaleItem item, Map<Long, ProductResponse> products) {
         Product product = item.getProduct();
+        ProductResponse productResponse = product == null ? null : products.get(product.getId());
         return SaleItemResponse.builder()
                 .id(item.getId())
-                .product(product == null ? null : ProductResponse.builder()
-                        .id(product.getId())
-                        .name(product.getName())
-                        .description(product.getDescription())
-                        .price(product.getPrice())
-                        .category(product.getCategory())
-                        .imageUrl(product.getImageUrl())
-                        .active(product.getActive())
-                        .stock(product.getStock())
-                        .createdAt(product.getCreatedAt())
-                        .updatedAt(product.getUpdatedAt())
-                        .build())
+                .product(productResponse != null || product == null ? productResponse : mapProductToResponse(product))
                 .quantity(item.getQuantity())
                 .unitPrice(item.getUnitPrice())
                 .totalPrice(item.getTotalPrice())
                 .build();
     }
+
+    private ProductResponse mapProductToResponse(Product product) {
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .category(product.getCategory())
+                .imageUrl(product.getImageUrl())
+                .active(product.getActive())
+                .stock(product.getStock())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
 }
\ No newline at end of file
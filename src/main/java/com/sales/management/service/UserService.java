@@ -12,6 +12,7 @@ import com.sales.management.model.entity.User;
 import com.sales.management.model.enums.UserRole;
 import com.sales.management.repository.SaleRepository;
 import com.sales.management.repository.UserRepository;
+import com.sales.management.repository.VersionStamp;
 import com.sales.management.util.Constants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
@@ -145,6 +146,17 @@ public class UserService {
                 .map(this::mapToResponse);
     }
 
+    /**
+     * updatedAt do usuário ativo (null se não existir), usado no ETag sem carregar a entidade
+     */
+    public LocalDateTime getUserVersion(Long id) {
+        return userRepository.findActiveUpdatedAtById(id).orElse(null);
+    }
+
+    public VersionStamp getUsersVersion() {
+        return userRepository.findActiveVersionStamp();
+    }
+
     public User findByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.USER_NOT_FOUND));
@@ -178,7 +190,7 @@ public class UserService {
         userRepository.save(currentUser);
     }
 
-    @Cacheable(value = "sellerStats", key = "#sellerId + '_' + #startDate + '_' + #endDate")
+    @Cacheable(value = "sellerStats", key = "#sellerId + '_' + #startDate + '_' + #endDate", sync = true)
     public SellerStatsResponse getSellerStats(Long sellerId, LocalDateTime startDate, LocalDateTime endDate) {
         User user = userRepository.findById(sellerId)
                 .orElseThrow(() -> new ResourceNotFoundException(Constants.USER_NOT_FOUND));
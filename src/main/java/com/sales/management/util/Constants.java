@@ -15,6 +15,7 @@ public class Constants {
     public static final String PRODUCT_NOT_FOUND = "Produto não encontrado";
     public static final String CUSTOMER_NOT_FOUND = "Cliente não encontrado";
     public static final String SALE_NOT_FOUND = "Venda não encontrada";
+    public static final String AUDIT_LOG_NOT_FOUND = "Registro de auditoria não encontrado";
     public static final String EMAIL_ALREADY_EXISTS = "Email já cadastrado";
     public static final String CPF_ALREADY_EXISTS = "CPF já cadastrado";
     public static final String INVALID_CREDENTIALS = "Email ou senha inválidos";
@@ -0,0 +1,86 @@
+package com.sales.management.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class ETagUtil {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+
+    /**
+     * Monta um ETag fraco a partir das partes que identificam a versão do recurso
+     * (ex: tipo, id e updatedAt). É fraco porque a compressão do servidor altera os bytes.
+     */
+    public static String weak(Object... parts) {
+        String raw = Arrays.stream(parts)
+                .map(part -> Objects.toString(part, ""))
+                .collect(Collectors.joining(":"));
+        return "W/\"" + DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * ETag fraco da representação negociada: JSON, Smile e CBOR da mesma versão têm bytes diferentes,
+     * então o formato entra no ETag (e as respostas levam Vary: Accept, ver WebConfig)
+     */
+    public static String weak(WebRequest request, Object... parts) {
+        Object[] withFormat = Arrays.copyOf(parts, parts.length + 1);
+        withFormat[parts.length] = format(request.getHeader(HttpHeaders.ACCEPT));
+        return weak(withFormat);
+    }
+
+    /**
+     * Formato que a negociação escolhe para o Accept: o primeiro tipo aceito, por qualidade e especificidade,
+     * entre Smile, CBOR e JSON (padrão)
+     */
+    static String format(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "json";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "json";
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "json";
+            }
+            if (mediaType.isCompatibleWith(SMILE)) {
+                return "smile";
+            }
+            if (mediaType.isCompatibleWith(CBOR)) {
+                return "cbor";
+            }
+        }
+        return "json";
+    }
+
+    /**
+     * Converte um updatedAt em epoch millis para o header Last-Modified (-1 se ausente)
+     */
+    public static long lastModified(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    private ETagUtil() {
+        // Private constructor
+    }
+}
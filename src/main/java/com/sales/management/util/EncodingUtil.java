@@ -0,0 +1,51 @@
+package com.sales.management.util;
+
+import java.util.Locale;
+
+public class EncodingUtil {
+
+    /**
+     * Se o Accept-Encoding aceita gzip: gzip (ou x-gzip) com q > 0, ou * com q > 0 quando gzip não é listado.
+     * "gzip;q=0" recusa explicitamente
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    // q inválido: trata como recusa, como um q=0
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private EncodingUtil() {
+        // Private constructor
+    }
+}
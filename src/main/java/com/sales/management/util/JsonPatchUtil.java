@@ -0,0 +1,131 @@
+package com.sales.management.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON Patch (RFC 6902) mínimo para a auditoria: gera operações add/remove/replace entre dois
+ * documentos e as reaplica. Objetos são comparados campo a campo; arrays diferentes são substituídos inteiros.
+ */
+public class JsonPatchUtil {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    /**
+     * Operações que transformam source em target (null equivale a objeto vazio)
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = NODES.arrayNode();
+        diff("", source != null ? source : NODES.objectNode(), target != null ? target : NODES.objectNode(), patch);
+        return patch;
+    }
+
+    /**
+     * Aplica o patch sobre uma cópia do documento
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        JsonNode result = document != null ? document.deepCopy() : NODES.objectNode();
+        for (JsonNode operation : patch) {
+            String op = operation.path("op").asText();
+            List<String> tokens = parsePointer(operation.path("path").asText());
+            if (tokens.isEmpty()) {
+                // Operação sobre o documento inteiro
+                result = "remove".equals(op) ? NODES.objectNode() : operation.get("value").deepCopy();
+                continue;
+            }
+
+            JsonNode parent = navigate(result, tokens.subList(0, tokens.size() - 1));
+            String last = tokens.get(tokens.size() - 1);
+            if (parent instanceof ObjectNode object) {
+                if ("remove".equals(op)) {
+                    object.remove(last);
+                } else {
+                    object.set(last, operation.get("value").deepCopy());
+                }
+            } else if (parent instanceof ArrayNode array) {
+                int index = "-".equals(last) ? array.size() : Integer.parseInt(last);
+                switch (op) {
+                    case "add" -> array.insert(index, operation.get("value").deepCopy());
+                    case "replace" -> array.set(index, operation.get("value").deepCopy());
+                    case "remove" -> array.remove(index);
+                    default -> throw new IllegalArgumentException("Operação não suportada: " + op);
+                }
+            } else {
+                throw new IllegalArgumentException("Caminho inválido no patch: " + operation.path("path").asText());
+            }
+        }
+        return result;
+    }
+
+    private static void diff(String path, JsonNode source, JsonNode target, ArrayNode patch) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (!(source instanceof ObjectNode) || !(target instanceof ObjectNode)) {
+            patch.add(operation("replace", path).set("value", target));
+            return;
+        }
+
+        Iterator<String> sourceFields = source.fieldNames();
+        while (sourceFields.hasNext()) {
+            String field = sourceFields.next();
+            if (!target.has(field)) {
+                patch.add(operation("remove", path + "/" + escape(field)));
+            }
+        }
+        Iterator<Map.Entry<String, JsonNode>> targetFields = target.fields();
+        while (targetFields.hasNext()) {
+            Map.Entry<String, JsonNode> field = targetFields.next();
+            String fieldPath = path + "/" + escape(field.getKey());
+            if (!source.has(field.getKey())) {
+                patch.add(operation("add", fieldPath).set("value", field.getValue()));
+            } else {
+                diff(fieldPath, source.get(field.getKey()), field.getValue(), patch);
+            }
+        }
+    }
+
+    private static ObjectNode operation(String op, String path) {
+        return NODES.objectNode().put("op", op).put("path", path);
+    }
+
+    private static JsonNode navigate(JsonNode document, List<String> tokens) {
+        JsonNode current = document;
+        for (String token : tokens) {
+            current = current.isArray() ? current.get(Integer.parseInt(token)) : current.get(token);
+            if (current == null) {
+                throw new IllegalArgumentException("Caminho inexistente no documento: /" + String.join("/", tokens));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * JSON Pointer (RFC 6901): "/a/b~1c" -> [a, b/c]
+     */
+    private static List<String> parsePointer(String pointer) {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static String escape(String field) {
+        return field.replace("~", "~0").replace("/", "~1");
+    }
+
+    private JsonPatchUtil() {
+        // Private constructor
+    }
+}
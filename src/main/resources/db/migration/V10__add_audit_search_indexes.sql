@@ -0,0 +1,12 @@
+-- Índices compostos para a busca dinâmica de auditoria (AuditLogRepositoryCustomImpl):
+-- cada filtro por igualdade seguido de timestamp, que é usado no intervalo e na ordenação.
+-- Criados na tabela particionada, são propagados para todas as partições.
+
+-- (user_id) e (entity_type, entity_id) passam a ser prefixos dos novos índices
+DROP INDEX idx_audit_user;
+DROP INDEX idx_audit_entity;
+
+CREATE INDEX idx_audit_user_timestamp ON audit_logs(user_id, timestamp);
+CREATE INDEX idx_audit_action_timestamp ON audit_logs(action, timestamp);
+CREATE INDEX idx_audit_entity_type_timestamp ON audit_logs(entity_type, timestamp);
+CREATE INDEX idx_audit_entity_timestamp ON audit_logs(entity_type, entity_id, timestamp);
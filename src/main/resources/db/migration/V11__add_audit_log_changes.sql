@@ -0,0 +1,7 @@
+-- Alterações auditadas passam a ser gravadas como JSON Patch (RFC 6902) em vez de dois snapshots em TEXT.
+-- old_value/new_value ficam para os registros antigos.
+ALTER TABLE audit_logs ADD COLUMN changes JSONB;
+
+-- lz4 comprime/descomprime mais rápido que o pglz padrão nos valores TOAST (CREATE grava o estado inteiro).
+-- Propaga para as partições existentes e é herdado pelas criadas por create_audit_log_partition
+ALTER TABLE audit_logs ALTER COLUMN changes SET COMPRESSION lz4;
@@ -0,0 +1,25 @@
+-- old_value/new_value passam a jsonb para buscas por conteúdo com índice (containment @> e JSONPath @@).
+-- Valores antigos que não são JSON (ex: "PENDING") viram strings JSON.
+CREATE OR REPLACE FUNCTION audit_text_to_jsonb(value TEXT) RETURNS JSONB AS $$
+BEGIN
+    RETURN value::jsonb;
+EXCEPTION WHEN others THEN
+    RETURN to_jsonb(value);
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+ALTER TABLE audit_logs
+    ALTER COLUMN old_value TYPE JSONB USING audit_text_to_jsonb(old_value),
+    ALTER COLUMN new_value TYPE JSONB USING audit_text_to_jsonb(new_value);
+
+ALTER TABLE audit_logs
+    ALTER COLUMN old_value SET COMPRESSION lz4,
+    ALTER COLUMN new_value SET COMPRESSION lz4;
+
+DROP FUNCTION audit_text_to_jsonb(TEXT);
+
+-- jsonb_path_ops: índice menor e mais rápido que o jsonb_ops padrão; atende @>, @? e @@
+-- (não atende operadores de chave como ?, que a busca não usa)
+CREATE INDEX idx_audit_old_value_gin ON audit_logs USING GIN (old_value jsonb_path_ops);
+CREATE INDEX idx_audit_new_value_gin ON audit_logs USING GIN (new_value jsonb_path_ops);
+CREATE INDEX idx_audit_changes_gin ON audit_logs USING GIN (changes jsonb_path_ops);
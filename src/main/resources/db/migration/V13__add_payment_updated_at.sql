@@ -0,0 +1,5 @@
+-- O pagamento muda sem alterar a venda (ex: marcar como pago em venda já confirmada),
+-- então precisa da própria data de atualização para entrar no ETag da venda.
+ALTER TABLE payments ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+UPDATE payments SET updated_at = COALESCE(payment_date, created_at);
@@ -0,0 +1,44 @@
+-- create_audit_log_partition (V9) falhava quando a partição DEFAULT já tinha linhas do mês
+-- (ex: job de manutenção parado na virada do mês): o PostgreSQL recusa criar uma partição
+-- cuja faixa tem linhas na DEFAULT. Agora a DEFAULT é desanexada, a partição criada,
+-- as linhas do mês movidas para ela e a DEFAULT reanexada.
+-- A manutenção é feita por AuditLogRetentionService (o cabeçalho da V9 cita um nome antigo;
+-- a V9 não é editada porque alterar o arquivo muda o checksum validado pelo Flyway).
+
+CREATE OR REPLACE FUNCTION create_audit_log_partition(month_start DATE) RETURNS TEXT AS $$
+DECLARE
+    start_date DATE := date_trunc('month', month_start)::DATE;
+    end_date DATE := (date_trunc('month', month_start) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'audit_logs_' || to_char(start_date, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM audit_logs_default WHERE timestamp >= start_date AND timestamp < end_date) THEN
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+            partition_name, start_date, end_date);
+        RETURN partition_name;
+    END IF;
+
+    -- Bloqueia inserts durante a troca; quem esperava o lock pode já encontrar a partição criada
+    LOCK TABLE audit_logs IN ACCESS EXCLUSIVE MODE;
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    ALTER TABLE audit_logs DETACH PARTITION audit_logs_default;
+    EXECUTE format(
+        'CREATE TABLE %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+        partition_name, start_date, end_date);
+    EXECUTE format(
+        'WITH moved AS (DELETE FROM audit_logs_default WHERE timestamp >= %L AND timestamp < %L RETURNING *) ' ||
+        'INSERT INTO %I SELECT * FROM moved',
+        start_date, end_date, partition_name);
+    ALTER TABLE audit_logs ATTACH PARTITION audit_logs_default DEFAULT;
+
+    RAISE NOTICE 'Linhas de % movidas da partição DEFAULT para %', to_char(start_date, 'YYYY-MM'), partition_name;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,8 @@
+CREATE TABLE product_deletions (
+    id BIGSERIAL PRIMARY KEY,
+    product_id BIGINT NOT NULL REFERENCES products(id),
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_product_deletions_deleted_at ON product_deletions(deleted_at);
+CREATE INDEX idx_products_updated_at ON products(updated_at);
@@ -0,0 +1,70 @@
+-- audit_logs passa a ser particionada por mês em "timestamp".
+-- Partições futuras são criadas pelo job AuditLogPartitionMaintenance (create_audit_log_partition)
+-- e partições antigas são desanexadas e arquivadas (schema audit_archive) ou removidas pela retenção.
+
+ALTER TABLE audit_logs RENAME TO audit_logs_legacy;
+ALTER TABLE audit_logs_legacy RENAME CONSTRAINT audit_logs_pkey TO audit_logs_legacy_pkey;
+ALTER SEQUENCE audit_logs_id_seq OWNED BY NONE;
+DROP INDEX idx_audit_entity;
+DROP INDEX idx_audit_user;
+DROP INDEX idx_audit_timestamp;
+
+CREATE TABLE audit_logs (
+    id BIGINT NOT NULL DEFAULT nextval('audit_logs_id_seq'),
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    -- CANCEL e PAYMENT_RECEIVED já eram gravados pela aplicação e violavam o CHECK anterior
+    action VARCHAR(20) NOT NULL CHECK (action IN ('CREATE', 'UPDATE', 'DELETE', 'CANCEL', 'PAYMENT_RECEIVED')),
+    old_value TEXT,
+    new_value TEXT,
+    user_id BIGINT NOT NULL,
+    ip_address VARCHAR(50),
+    user_agent TEXT,
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- A chave de partição precisa fazer parte da chave primária
+    PRIMARY KEY (id, timestamp),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+
+CREATE INDEX idx_audit_entity ON audit_logs(entity_type, entity_id);
+CREATE INDEX idx_audit_user ON audit_logs(user_id);
+CREATE INDEX idx_audit_timestamp ON audit_logs(timestamp);
+
+-- Linhas fora de qualquer partição mensal (ex: job parado) caem aqui em vez de falhar o insert
+CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+
+CREATE SCHEMA IF NOT EXISTS audit_archive;
+
+CREATE OR REPLACE FUNCTION create_audit_log_partition(month_start DATE) RETURNS TEXT AS $$
+DECLARE
+    start_date DATE := date_trunc('month', month_start)::DATE;
+    end_date DATE := (date_trunc('month', month_start) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'audit_logs_' || to_char(start_date, 'YYYY_MM');
+BEGIN
+    EXECUTE format(
+        'CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+        partition_name, start_date, end_date);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partições do mês mais antigo já registrado até três meses à frente
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(timestamp) FROM audit_logs_legacy), CURRENT_TIMESTAMP))::DATE;
+BEGIN
+    WHILE month_start <= (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::DATE LOOP
+        PERFORM create_audit_log_partition(month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO audit_logs (id, entity_type, entity_id, action, old_value, new_value, user_id, ip_address, user_agent, timestamp)
+SELECT id, entity_type, entity_id, action, old_value, new_value, user_id, ip_address, user_agent,
+       COALESCE(timestamp, CURRENT_TIMESTAMP)
+FROM audit_logs_legacy;
+
+DROP TABLE audit_logs_legacy;
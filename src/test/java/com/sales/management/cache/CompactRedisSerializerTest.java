@@ -0,0 +1,132 @@
+package com.sales.management.cache;
+
+import com.sales.management.model.dto.response.AuditStatsResponse;
+import com.sales.management.model.dto.response.ProductResponse;
+import com.sales.management.model.dto.response.SellerStatsResponse;
+import com.sales.management.service.AuditStatsService;
+import com.sales.management.service.CatalogService;
+import com.sales.management.service.DashboardPartialService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(1024);
+
+    @Test
+    void roundTripsCachedDtos() {
+        ProductResponse product = product(1L);
+        SellerStatsResponse stats = new SellerStatsResponse(10L, new BigDecimal("1500.00"), 4L, new BigDecimal("150.00"));
+        CatalogService.Snapshot snapshot = new CatalogService.Snapshot(42L, new byte[]{31, -117, 8, 0});
+
+        assertThat(roundTrip(product)).isEqualTo(product);
+        assertThat(roundTrip(stats)).isEqualTo(stats);
+        CatalogService.Snapshot snapshotBack = (CatalogService.Snapshot) roundTrip(snapshot);
+        assertThat(snapshotBack.getVersion()).isEqualTo(42L);
+        assertThat(snapshotBack.getGzippedJson()).isEqualTo(snapshot.getGzippedJson());
+    }
+
+    @Test
+    void keepsElementTypesOfGenericRoots() {
+        List<ProductResponse> arrayList = new ArrayList<>(List.of(product(1L), product(2L)));
+        List<ProductResponse> streamList = Stream.of(product(3L)).toList();
+        List<String> categories = new ArrayList<>(List.of("Bebidas", "Padaria"));
+
+        assertThat(roundTrip(arrayList)).isEqualTo(arrayList);
+        assertThat((List<?>) roundTrip(streamList)).singleElement().isInstanceOf(ProductResponse.class);
+        assertThat(roundTrip(streamList)).isEqualTo(streamList);
+        assertThat(roundTrip(categories)).isEqualTo(categories);
+        assertThat(roundTrip(List.of())).isEqualTo(List.of());
+    }
+
+    @Test
+    void keepsTypesOfFinalRoots() {
+        assertThat(roundTrip(5L)).isEqualTo(5L);
+        assertThat(roundTrip("categorias")).isEqualTo("categorias");
+        assertThat(roundTrip(new BigDecimal("9.90"))).isEqualTo(new BigDecimal("9.90"));
+        assertThat(roundTrip(LocalDate.of(2026, 1, 15))).isEqualTo(LocalDate.of(2026, 1, 15));
+    }
+
+    @Test
+    void roundTripsStaleableDashboardPartialWithMaps() {
+        Map<Long, DashboardPartialService.ProductTotals> products = new HashMap<>();
+        products.put(7L, new DashboardPartialService.ProductTotals("Café", 3, new BigDecimal("29.70")));
+        Map<String, Long> byMethod = new HashMap<>(Map.of("PIX", 2L, "CASH", 1L));
+        DashboardPartialService.Partial partial = new DashboardPartialService.Partial(
+                LocalDate.of(2026, 1, 15), new BigDecimal("29.70"), 3, BigDecimal.ZERO, 0, products, byMethod);
+
+        StaleableValue back = (StaleableValue) roundTrip(new StaleableValue(partial, 1_700_000_000_000L));
+
+        assertThat(back.getComputedAt()).isEqualTo(1_700_000_000_000L);
+        DashboardPartialService.Partial partialBack = (DashboardPartialService.Partial) back.getValue();
+        assertThat(partialBack).isEqualTo(partial);
+        assertThat(partialBack.getProducts().keySet()).containsExactly(7L);
+        assertThat(partialBack.getSalesByPaymentMethod().get("PIX")).isEqualTo(2L);
+    }
+
+    @Test
+    void roundTripsCompressedAuditStats() {
+        List<AuditStatsResponse.BucketCountDTO> counts = IntStream.range(0, 200)
+                .mapToObj(i -> AuditStatsResponse.BucketCountDTO.builder()
+                        .bucketStart(LocalDateTime.of(2026, 1, 15, i % 24, 0))
+                        .action("UPDATE")
+                        .entityType("SALE")
+                        .userId((long) i)
+                        .userName("Usuário " + i)
+                        .count(i * 10L)
+                        .build())
+                .toList();
+        AuditStatsService.DayStats stats = new AuditStatsService.DayStats(counts);
+
+        byte[] bytes = serializer.serialize(stats);
+
+        assertThat(bytes.length).isLessThan(200 * 40);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(stats);
+    }
+
+    @Test
+    void treatsOtherFormatVersionsAsMiss() {
+        byte[] bytes = serializer.serialize(product(1L));
+        bytes[0] = CompactRedisSerializer.FORMAT_VERSION - 1;
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+
+    @Test
+    void rejectsUntrustedTypes() {
+        byte[] bytes = serializer.serialize(URI.create("https://example.com"));
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+    private static ProductResponse product(Long id) {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 15, 10, 30);
+        return ProductResponse.builder()
+                .id(id)
+                .name("Produto " + id)
+                .price(new BigDecimal("19.90"))
+                .category("Bebidas")
+                .active(true)
+                .stock(10)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+}
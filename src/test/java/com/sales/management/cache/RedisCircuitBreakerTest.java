@@ -0,0 +1,138 @@
+package com.sales.management.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisCircuitBreakerTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RedisCircuitBreaker breaker;
+
+    @AfterEach
+    void tearDown() {
+        breaker.destroy();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsWithoutCallingRedis() {
+        breaker = breaker(2, 500);
+
+        assertThat(breaker.execute(this::fail, () -> "fallback")).isEqualTo("fallback");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.execute(this::fail, () -> "fallback")).isEqualTo("fallback");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThat(breaker.execute(() -> "redis " + calls.incrementAndGet(), () -> "fallback")).isEqualTo("fallback");
+        assertThat(calls).hasValue(0);
+        assertThat(breaker.isAvailable()).isFalse();
+        assertThat(meterRegistry.get("cache.redis.breaker.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.redis.breaker.state").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        breaker = breaker(2, 500);
+
+        breaker.execute(this::fail, () -> null);
+        assertThat(breaker.execute(() -> "ok", () -> "fallback")).isEqualTo("ok");
+        breaker.execute(this::fail, () -> null);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowCallsCountAsFailuresButKeepTheirResult() {
+        breaker = breaker(2, 0);
+
+        assertThat(breaker.execute(() -> "lento", () -> "fallback")).isEqualTo("lento");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.execute(() -> "lento", () -> "fallback")).isEqualTo("lento");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void otherExceptionsPropagateWithoutOpeningTheCircuit() {
+        breaker = breaker(1, 500);
+
+        assertThatThrownBy(() -> breaker.execute(() -> {
+            throw new IllegalStateException("serialização");
+        }, () -> "fallback")).isInstanceOf(IllegalStateException.class);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void probeClosesTheCircuitThroughHalfOpenAndNotifiesListeners() {
+        breaker = breaker(1, 500);
+        breaker.execute(this::fail, () -> null);
+        AtomicReference<RedisCircuitBreaker.State> duringPing = new AtomicReference<>();
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation -> {
+            duringPing.set(breaker.getState());
+            return "PONG";
+        });
+        AtomicInteger recoveries = new AtomicInteger();
+        breaker.addRecoveryListener(recoveries::incrementAndGet);
+        breaker.addRecoveryListener(() -> {
+            throw new IllegalStateException("listener com erro");
+        });
+
+        breaker.probe();
+
+        assertThat(duringPing).hasValue(RedisCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(recoveries).hasValue(1);
+        assertThat(breaker.execute(() -> "ok", () -> "fallback")).isEqualTo("ok");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedProbeKeepsTheCircuitOpen() {
+        breaker = breaker(1, 500);
+        breaker.execute(this::fail, () -> null);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+        AtomicInteger recoveries = new AtomicInteger();
+        breaker.addRecoveryListener(recoveries::incrementAndGet);
+
+        breaker.probe();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(recoveries).hasValue(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void probeDoesNothingWhileClosed() {
+        breaker = breaker(1, 500);
+
+        breaker.probe();
+
+        verify(redisTemplate, never()).execute(any(RedisCallback.class));
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    private RedisCircuitBreaker breaker(int failureThreshold, long slowCallMillis) {
+        // Probe agendado bem depois do fim do teste: as transições são disparadas chamando probe()
+        return new RedisCircuitBreaker(redisTemplate, meterRegistry, failureThreshold, slowCallMillis, 3600);
+    }
+
+    private String fail() {
+        throw new RedisConnectionFailureException("Redis indisponível");
+    }
+}
@@ -0,0 +1,111 @@
+package com.sales.management.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class StampedeGuardTest {
+
+    private final StampedeGuard guard = new StampedeGuard(mock(StringRedisTemplate.class), mock(RedisCircuitBreaker.class));
+
+    @Test
+    void followerSeesTheLeadersValue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> guard.singleFlight("key", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value";
+        }));
+        awaitLoadStarted(loads);
+        CompletableFuture<String> follower = parkedFollower(() -> guard.singleFlight("key", () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void errorInTheLoaderReleasesFollowers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> leader = new CompletableFuture<>();
+        Thread leaderThread = new Thread(() -> {
+            try {
+                leader.complete(guard.singleFlight("key", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    throw new StackOverflowError("loader");
+                }));
+            } catch (Throwable e) {
+                leader.completeExceptionally(e);
+            }
+        });
+        leaderThread.start();
+        awaitLoadStarted(loads);
+        CompletableFuture<String> follower = parkedFollower(() -> guard.singleFlight("key", () -> "other"));
+
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(StackOverflowError.class);
+        // Sem completar o future compartilhado, o seguidor ficaria parado em join() e o get daria timeout
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(StackOverflowError.class);
+        // A chave é liberada: a próxima chamada calcula de novo
+        assertThat(guard.singleFlight("key", () -> "again")).isEqualTo("again");
+    }
+
+    /**
+     * Inicia a chamada numa thread e espera até ela estar parada aguardando o cálculo em andamento
+     */
+    private static CompletableFuture<String> parkedFollower(Supplier<String> call) throws InterruptedException {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(call.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+        return result;
+    }
+
+    private static void awaitLoadStarted(AtomicInteger loads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (loads.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
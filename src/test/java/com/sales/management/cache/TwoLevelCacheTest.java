@@ -0,0 +1,183 @@
+package com.sales.management.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sales.management.model.dto.response.ProductResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoLevelCacheTest {
+
+    private StringRedisTemplate redisTemplate;
+    private RedisCircuitBreaker circuitBreaker;
+    private ConcurrentMapCache remote;
+    private TwoLevelCacheManager manager;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        redisTemplate = mock(StringRedisTemplate.class);
+        circuitBreaker = new RedisCircuitBreaker(redisTemplate, meterRegistry, 1, 500, 3600);
+        manager = mock(TwoLevelCacheManager.class);
+        when(manager.getCircuitBreaker()).thenReturn(circuitBreaker);
+
+        remote = new ConcurrentMapCache("products");
+        cache = new TwoLevelCache("products", remote,
+                Caffeine.newBuilder().maximumSize(100).expireAfterWrite(Duration.ofMinutes(1)).build(),
+                new CompactRedisSerializer(Integer.MAX_VALUE), manager, null, Runnable::run,
+                new CacheMetrics(meterRegistry).forCache("products"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        circuitBreaker.destroy();
+    }
+
+    @Test
+    void localReadsReturnIndependentCopies() {
+        ProductResponse product = ProductResponse.builder().id(1L).name("Café").price(new BigDecimal("9.90")).build();
+        cache.put(1L, product);
+        product.setName("alterado por quem gravou");
+
+        ProductResponse first = cache.get(1L, ProductResponse.class);
+        first.setName("alterado por quem leu");
+        ProductResponse second = cache.get(1L, ProductResponse.class);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("Café");
+        assertThat(second.getPrice()).isEqualByComparingTo("9.90");
+    }
+
+    @Test
+    void remoteHitsAreCopiedIntoLocal() {
+        remote.put(2L, ProductResponse.builder().id(2L).name("Pão").build());
+
+        ProductResponse fromRemote = cache.get(2L, ProductResponse.class);
+        fromRemote.setName("alterado");
+        remote.evict(2L);
+
+        assertThat(cache.get(2L, ProductResponse.class).getName()).isEqualTo("Pão");
+    }
+
+    @Test
+    void immutableValuesAreKeptAsIs() {
+        String value = "categorias";
+        cache.put("key", value);
+
+        assertThat(cache.get("key", String.class)).isSameAs(value);
+    }
+
+    @Test
+    void bulkLoadDoesNotBroadcastInvalidations() {
+        cache.putAllQuietly(Map.of(
+                1L, ProductResponse.builder().id(1L).name("Café").build(),
+                2L, ProductResponse.builder().id(2L).name("Pão").build()));
+
+        assertThat(cache.get(1L, ProductResponse.class).getName()).isEqualTo("Café");
+        assertThat(remote.get(2L, ProductResponse.class).getName()).isEqualTo("Pão");
+        verify(manager, never()).publishEviction(anyString(), anyString());
+        verify(manager, never()).pipelined(any());
+    }
+
+    @Test
+    void evictionsWhileOpenAreReplayedOnRecovery() {
+        remote.put(1L, ProductResponse.builder().id(1L).name("Café").build());
+        remote.put(2L, ProductResponse.builder().id(2L).name("Pão").build());
+        openCircuit();
+
+        cache.evict(1L);
+        assertThat(cache.evictIfPresent(2L)).isFalse();
+        assertThat(remote.get(1L)).isNotNull();
+        assertThat(remote.get(2L)).isNotNull();
+
+        closeCircuit();
+        cache.replayPendingEvictions();
+
+        assertThat(remote.get(1L)).isNull();
+        assertThat(remote.get(2L)).isNull();
+        verify(manager, times(2)).publishEviction("products", "1");
+        verify(manager, times(2)).publishEviction("products", "2");
+
+        // Pendências já reaplicadas não são repetidas
+        cache.replayPendingEvictions();
+        verify(manager, times(2)).publishEviction("products", "1");
+    }
+
+    @Test
+    void clearWhileOpenIsReplayedAsClear() {
+        remote.put(1L, ProductResponse.builder().id(1L).name("Café").build());
+        openCircuit();
+
+        cache.evict(3L);
+        cache.clear();
+        assertThat(remote.get(1L)).isNotNull();
+
+        closeCircuit();
+        cache.replayPendingEvictions();
+
+        assertThat(remote.get(1L)).isNull();
+        verify(manager, times(2)).publishClear("products");
+        verify(manager, times(1)).publishEviction("products", "3");
+    }
+
+    @Test
+    void ageHeadersReportTheOldestValueOfTheResponse() {
+        TwoLevelCache days = new TwoLevelCache("dashboardDays", remote,
+                Caffeine.newBuilder().maximumSize(100).build(),
+                new CompactRedisSerializer(Integer.MAX_VALUE), manager, Duration.ofMinutes(1), Runnable::run,
+                new CacheMetrics(new SimpleMeterRegistry()).forCache("dashboardDays"));
+        long now = System.currentTimeMillis();
+        remote.put("antigo", new StaleableValue("a", now - 120_000));
+        remote.put("recente", new StaleableValue("b", now - 10_000));
+        remote.put("anterior", new StaleableValue("c", now - 600_000));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        try {
+            days.get("antigo");
+            days.get("recente");
+            TwoLevelCache.ignoringAge(() -> days.get("anterior"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(Long.parseLong(response.getHeader(TwoLevelCache.AGE_HEADER))).isBetween(120L, 125L);
+        assertThat(response.getHeader(TwoLevelCache.STALE_HEADER)).isEqualTo("true");
+    }
+
+    private void openCircuit() {
+        circuitBreaker.execute(() -> {
+            throw new RedisConnectionFailureException("Redis indisponível");
+        }, () -> null);
+        assertThat(circuitBreaker.isAvailable()).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void closeCircuit() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG");
+        circuitBreaker.probe();
+        assertThat(circuitBreaker.isAvailable()).isTrue();
+    }
+}
@@ -0,0 +1,131 @@
+package com.sales.management.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sales.management.model.dto.response.CustomerResponse;
+import com.sales.management.model.dto.response.ProductResponse;
+import com.sales.management.model.dto.response.SaleItemResponse;
+import com.sales.management.model.dto.response.SaleResponse;
+import com.sales.management.model.dto.response.UserResponse;
+import com.sales.management.model.enums.PaymentMethod;
+import com.sales.management.model.enums.PaymentStatus;
+import com.sales.management.model.enums.SaleStatus;
+import com.sales.management.model.enums.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JacksonConfigTest {
+
+    private static final int SALES = 20;
+
+    @Test
+    void blackbirdWritesTheSameBytesAsReflection() throws Exception {
+        List<SaleResponse> sales = sampleSales(SALES);
+
+        assertThat(new JacksonConfig().objectMapper().writeValueAsBytes(sales))
+                .isEqualTo(reflectionMapper().writeValueAsBytes(sales));
+    }
+
+    @Test
+    void negotiatedFormatsRoundTrip() throws Exception {
+        List<SaleResponse> sales = sampleSales(SALES);
+        JacksonConfig config = new JacksonConfig();
+        TypeReference<List<SaleResponse>> type = new TypeReference<>() {
+        };
+
+        for (ObjectMapper mapper : List.of(config.objectMapper(),
+                config.smileHttpMessageConverter().getObjectMapper(),
+                config.cborHttpMessageConverter().getObjectMapper())) {
+            assertThat(mapper.readValue(mapper.writeValueAsBytes(sales), type)).isEqualTo(sales);
+        }
+    }
+
+    /**
+     * Mesma configuração do JacksonConfig, sem o BlackbirdModule (acesso por reflexão)
+     */
+    static ObjectMapper reflectionMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .modules(new JavaTimeModule())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .mixIn(ProductResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(CustomerResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(UserResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(SaleResponse.class, SparseFieldsFilter.Mixin.class)
+                .mixIn(SaleItemResponse.class, SparseFieldsFilter.Mixin.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()))
+                .build();
+    }
+
+    /**
+     * Página de vendas com o mesmo formato da API: vendedor, cliente e três itens com produto
+     */
+    static List<SaleResponse> sampleSales(int count) {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 15, 10, 30);
+        List<SaleResponse> sales = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            long saleId = id;
+            sales.add(SaleResponse.builder()
+                    .id(saleId)
+                    .saleDate(now.minusMinutes(saleId))
+                    .totalAmount(new BigDecimal("359.70"))
+                    .discount(new BigDecimal("10.00"))
+                    .finalAmount(new BigDecimal("349.70"))
+                    .status(SaleStatus.CONFIRMED)
+                    .notes("Venda " + saleId)
+                    .seller(UserResponse.builder()
+                            .id(saleId % 20)
+                            .name("Vendedor " + saleId % 20)
+                            .email("vendedor" + saleId % 20 + "@example.com")
+                            .role(UserRole.SELLER)
+                            .active(true)
+                            .createdAt(now)
+                            .build())
+                    .customer(CustomerResponse.builder()
+                            .id(saleId % 500)
+                            .name("Cliente " + saleId % 500)
+                            .phone("11999990000")
+                            .email("cliente" + saleId % 500 + "@example.com")
+                            .address("Rua Exemplo, " + saleId % 500)
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build())
+                    .items(IntStream.range(0, 3)
+                            .mapToObj(i -> SaleItemResponse.builder()
+                                    .id(saleId * 3 + i)
+                                    .product(ProductResponse.builder()
+                                            .id((long) i)
+                                            .name("Produto " + i)
+                                            .description("Descrição do produto " + i)
+                                            .price(new BigDecimal("119.90"))
+                                            .category("Categoria")
+                                            .active(true)
+                                            .stock(100)
+                                            .createdAt(now)
+                                            .updatedAt(now)
+                                            .build())
+                                    .quantity(1)
+                                    .unitPrice(new BigDecimal("119.90"))
+                                    .totalPrice(new BigDecimal("119.90"))
+                                    .build())
+                            .toList())
+                    .paymentMethod(PaymentMethod.PIX)
+                    .paymentStatus(PaymentStatus.PAID)
+                    .paymentDate(now)
+                    .createdAt(now)
+                    .build());
+        }
+        return sales;
+    }
+}
@@ -0,0 +1,98 @@
+package com.sales.management.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sales.management.model.dto.response.SaleResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark simples (sem JMH) da serialização de uma página grande de vendas.
+ * Os tempos são só impressos, porque variam com a máquina; por isso só roda com SERIALIZATION_BENCHMARK=true.
+ * A equivalência das saídas é verificada em toda execução pelo JacksonConfigTest, numa página pequena.
+ */
+class SerializationBenchmarkTest {
+
+    private static final int SALES = 2_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 30;
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "SERIALIZATION_BENCHMARK", matches = "true")
+    void blackbirdAndGzipOnLargeSaleList() throws Exception {
+        List<SaleResponse> sales = JacksonConfigTest.sampleSales(SALES);
+        ObjectMapper blackbird = new JacksonConfig().objectMapper();
+        ObjectMapper reflection = JacksonConfigTest.reflectionMapper();
+
+        byte[] json = blackbird.writeValueAsBytes(sales);
+        assertThat(json).isEqualTo(reflection.writeValueAsBytes(sales));
+
+        double reflectionMs = measure(() -> reflection.writeValueAsBytes(sales));
+        double blackbirdMs = measure(() -> blackbird.writeValueAsBytes(sales));
+        double gzipMs = measure(() -> gzip(json));
+        byte[] gzipped = gzip(json);
+
+        System.out.printf("%d vendas: reflexão %.2f ms, Blackbird %.2f ms (%.0f%%)%n",
+                SALES, reflectionMs, blackbirdMs, 100 * (reflectionMs - blackbirdMs) / reflectionMs);
+        System.out.printf("JSON %d bytes, gzip %d bytes (%.0f%%) em %.2f ms%n",
+                json.length, gzipped.length, 100.0 * gzipped.length / json.length, gzipMs);
+
+        assertThat(gzipped.length).isLessThan(json.length);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "SERIALIZATION_BENCHMARK", matches = "true")
+    void negotiatedFormatsOnLargeSaleList() throws Exception {
+        List<SaleResponse> sales = JacksonConfigTest.sampleSales(SALES);
+        JacksonConfig config = new JacksonConfig();
+        Map<String, ObjectMapper> formats = new LinkedHashMap<>();
+        formats.put("JSON", config.objectMapper());
+        formats.put("Smile", config.smileHttpMessageConverter().getObjectMapper());
+        formats.put("CBOR", config.cborHttpMessageConverter().getObjectMapper());
+        TypeReference<List<SaleResponse>> type = new TypeReference<>() {
+        };
+
+        for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+            ObjectMapper mapper = format.getValue();
+            byte[] body = mapper.writeValueAsBytes(sales);
+            assertThat(mapper.readValue(body, type)).isEqualTo(sales);
+
+            double writeMs = measure(() -> mapper.writeValueAsBytes(sales));
+            double readMs = measure(() -> mapper.readValue(body, type));
+            System.out.printf("%-5s %8d bytes (gzip %6d), escrita %.2f ms, leitura %.2f ms%n",
+                    format.getKey(), body.length, gzip(body).length, writeMs, readMs);
+        }
+    }
+
+    /**
+     * Média em ms por execução, depois do aquecimento do JIT
+     */
+    static double measure(Callable<?> task) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            task.call();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+package com.sales.management.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.sales.management.cache.CompactRedisSerializer;
+import com.sales.management.model.dto.response.ProductResponse;
+import com.sales.management.model.dto.response.SaleResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SparseFieldsFilterTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SaleResponse sale = JacksonConfigTest.sampleSales(1).get(0);
+    private final ProductResponse product = sale.getItems().get(0).getProduct();
+
+    @Test
+    void detailKeepsOnlyRequestedFields() throws Exception {
+        JsonNode json = write(product, "id, name", null);
+
+        assertThat(fieldNames(json)).containsExactlyInAnyOrder("id", "name");
+    }
+
+    @Test
+    void nestedPathKeepsItsAncestorsOnly() throws Exception {
+        JsonNode json = write(sale, "id,items.product.name", null);
+
+        assertThat(fieldNames(json)).containsExactlyInAnyOrder("id", "items");
+        JsonNode item = json.get("items").get(0);
+        assertThat(fieldNames(item)).containsExactly("product");
+        assertThat(fieldNames(item.get("product"))).containsExactly("name");
+    }
+
+    @Test
+    void requestedObjectIsWrittenWhole() throws Exception {
+        JsonNode json = write(sale, "customer", null);
+
+        assertThat(fieldNames(json)).containsExactly("customer");
+        assertThat(json.get("customer")).isEqualTo(full(sale.getCustomer()));
+    }
+
+    @Test
+    void pathsOnlyMatchWholeSegments() throws Exception {
+        // "item" não é prefixo de "items" nem "product.name" casa com "productName"
+        assertThat(fieldNames(write(sale, "item,product.name", null))).isEmpty();
+    }
+
+    @Test
+    void unknownFieldsWriteAnEmptyObject() throws Exception {
+        assertThat(fieldNames(write(product, "unknown,items.x", null))).isEmpty();
+    }
+
+    @Test
+    void pageBodyAppliesPathsToEachElementOfContent() throws Exception {
+        PageImpl<ProductResponse> page = new PageImpl<>(List.of(product, product), PageRequest.of(0, 2), 10);
+
+        JsonNode json = write(page, "id", "content");
+
+        assertThat(json.get("content")).hasSize(2);
+        json.get("content").forEach(element -> assertThat(fieldNames(element)).containsExactly("id"));
+        // Metadados do Page não passam pelo filtro
+        assertThat(json.get("totalElements").asLong()).isEqualTo(10);
+    }
+
+    @Test
+    void withoutFilterEverythingIsWritten() throws Exception {
+        JsonNode json = full(sale);
+
+        assertThat(fieldNames(json.get("items").get(0).get("product"))).contains("id", "name", "price", "stock");
+    }
+
+    @Test
+    void cacheSerializationIgnoresTheFilter() {
+        // O serializador do Redis não usa os mix-ins: grava o objeto inteiro e lê de volta igual
+        CompactRedisSerializer serializer = new CompactRedisSerializer(Integer.MAX_VALUE);
+
+        assertThat(serializer.deserialize(serializer.serialize(sale))).isEqualTo(sale);
+    }
+
+    private JsonNode write(Object value, String fields, String rootPrefix) throws Exception {
+        byte[] body = objectMapper.writer(new SimpleFilterProvider()
+                        .addFilter(SparseFieldsFilter.ID, new SparseFieldsFilter(fields, rootPrefix)))
+                .writeValueAsBytes(value);
+        return objectMapper.readTree(body);
+    }
+
+    private JsonNode full(Object value) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(value));
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,58 @@
+package com.sales.management.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.sales.management.model.dto.response.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SparseFieldsResponseAdviceTest {
+
+    private final SparseFieldsResponseAdvice advice = new SparseFieldsResponseAdvice();
+
+    @Test
+    void withoutFieldsNoFilterIsSet() {
+        assertThat(apply(ProductResponse.builder().id(1L).build(), null).getFilters()).isNull();
+        assertThat(apply(ProductResponse.builder().id(1L).build(), "").getFilters()).isNull();
+        assertThat(apply(ProductResponse.builder().id(1L).build(), "  ").getFilters()).isNull();
+    }
+
+    @Test
+    void detailBodyHasNoRootPrefix() {
+        assertThat(rootPrefix(apply(ProductResponse.builder().id(1L).build(), "id"))).isNull();
+    }
+
+    @Test
+    void pageBodyUsesContentAsRoot() {
+        MappingJacksonValue body = apply(new PageImpl<>(List.of(ProductResponse.builder().id(1L).build())), "id,name");
+
+        assertThat(rootPrefix(body)).isEqualTo("content");
+    }
+
+    private MappingJacksonValue apply(Object value, String fields) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (fields != null) {
+            request.setParameter(SparseFieldsResponseAdvice.FIELDS_PARAM, fields);
+        }
+        MappingJacksonValue body = new MappingJacksonValue(value);
+        advice.beforeBodyWriteInternal(body, MediaType.APPLICATION_JSON, null,
+                new ServletServerHttpRequest(request), new ServletServerHttpResponse(new MockHttpServletResponse()));
+        return body;
+    }
+
+    private static String rootPrefix(MappingJacksonValue body) {
+        SparseFieldsFilter filter = (SparseFieldsFilter) ((SimpleFilterProvider) body.getFilters())
+                .findPropertyFilter(SparseFieldsFilter.ID, null);
+        return (String) ReflectionTestUtils.getField(filter, "rootPrefix");
+    }
+}
@@ -0,0 +1,221 @@
+package com.sales.management.repository;
+
+import com.sales.management.exception.BadRequestException;
+import com.sales.management.model.entity.AuditLog;
+import com.sales.management.model.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * SQL gerado pela busca dinâmica de auditoria para cada combinação de filtros.
+ * O Hibernate sobe sem banco (só o dialeto); o SQL é capturado pelo StatementInspector antes da execução.
+ * Com AUDIT_PLAN_DB_URL (banco migrado pelo Flyway) também verifica no EXPLAIN que cada combinação usa índice.
+ */
+class AuditLogRepositoryCustomImplTest {
+
+    private static final Pageable PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "timestamp"));
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 31, 23, 59);
+
+    private static final List<String> captured = new ArrayList<>();
+    private static SessionFactory sessionFactory;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+
+    @BeforeAll
+    static void buildSessionFactory() {
+        StatementInspector capture = sql -> {
+            captured.add(sql);
+            throw new SqlCaptured();
+        };
+        var registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .applySetting("hibernate.connection.url", "jdbc:postgresql://127.0.0.1:1/offline")
+                .applySetting("hibernate.connection.initial_pool_size", "0")
+                .applySetting("hibernate.session_factory.statement_inspector", capture)
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(AuditLog.class)
+                .addAnnotatedClass(User.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @AfterAll
+    static void closeSessionFactory() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    void eachFilterCombinationOnlyFiltersTheGivenColumns() {
+        for (int mask = 0; mask < 1 << 6; mask++) {
+            String sql = searchSql(filter(mask));
+            String where = sql.contains(" where ") ? sql.substring(sql.indexOf(" where "), sql.indexOf(" order by ")) : "";
+
+            assertThat(where).doesNotContain(" is null");
+            assertThat(where.contains("entity_type=?")).as("entityType, máscara %d", mask).isEqualTo(has(mask, 0));
+            assertThat(where.contains("entity_id=?")).as("entityId, máscara %d", mask).isEqualTo(has(mask, 1));
+            assertThat(where.contains("action=?")).as("action, máscara %d", mask).isEqualTo(has(mask, 2));
+            assertThat(where.contains("user_id=?")).as("userId, máscara %d", mask).isEqualTo(has(mask, 3));
+            assertThat(where.contains("timestamp>=?")).as("startDate, máscara %d", mask).isEqualTo(has(mask, 4));
+            assertThat(where.contains("timestamp<=?")).as("endDate, máscara %d", mask).isEqualTo(has(mask, 5));
+        }
+    }
+
+    @Test
+    void rejectsUnknownSortProperties() {
+        Pageable byPassword = PageRequest.of(0, 20, Sort.by("user.password"));
+
+        try (EntityManager entityManager = sessionFactory.createEntityManager()) {
+            AuditLogRepositoryCustomImpl repository = repository(entityManager);
+            assertThatThrownBy(() -> repository.search(AuditLogFilter.builder().build(), byPassword))
+                    .isInstanceOf(BadRequestException.class);
+            assertThatThrownBy(() -> repository.searchContent(AuditLogFilter.builder().contains("{}").build(), byPassword))
+                    .isInstanceOf(BadRequestException.class);
+        }
+        assertThat(captured).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void contentSearchOnlyFiltersTheGivenColumns() {
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class))).thenReturn(List.of());
+
+        repository(mock(EntityManager.class)).searchContent(AuditLogFilter.builder()
+                .userId(1L)
+                .jsonPath("$.status == \"CANCELLED\"")
+                .contentField(AuditLogFilter.ContentField.NEW_VALUE)
+                .build(), PAGE);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(SqlParameterSource.class), any(RowMapper.class));
+        assertThat(sql.getValue())
+                .contains("a.user_id = :userId AND ((a.new_value @@ CAST(:jsonPath AS jsonpath)))")
+                .doesNotContain("IS NULL", "old_value @@", "entity_type =")
+                .endsWith("ORDER BY a.timestamp DESC, a.id DESC LIMIT :limit OFFSET :offset");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "AUDIT_PLAN_DB_URL", matches = ".+")
+    void eachFilterCombinationUsesAnIndex() throws Exception {
+        try (Connection connection = DriverManager.getConnection(System.getenv("AUDIT_PLAN_DB_URL"),
+                System.getenv("AUDIT_PLAN_DB_USER"), System.getenv("AUDIT_PLAN_DB_PASSWORD"))) {
+            try (Statement statement = connection.createStatement()) {
+                // Tabela vazia ou pequena: sem isso o planner sempre prefere a varredura sequencial
+                statement.execute("SET enable_seqscan = off");
+            }
+            for (int mask = 0; mask < 1 << 6; mask++) {
+                // Só entity_id, sem entity_type, não é prefixo de nenhum índice
+                if (mask == 0b10) {
+                    continue;
+                }
+                String plan = explain(connection, searchSql(filter(mask)), mask);
+                assertThat(plan).as("plano da máscara %d:%n%s", mask, plan).doesNotContain("Seq Scan");
+            }
+        }
+    }
+
+    private String explain(Connection connection, String sql, int mask) throws Exception {
+        // Parâmetros na ordem do SQL: substr das prévias, filtros, OFFSET e FETCH FIRST
+        List<Object> values = new ArrayList<>(List.of(
+                1, AuditLogRepository.PREVIEW_LENGTH, 1, AuditLogRepository.PREVIEW_LENGTH));
+        if (has(mask, 0)) values.add("SALE");
+        if (has(mask, 1)) values.add(1L);
+        if (has(mask, 2)) values.add("UPDATE");
+        if (has(mask, 3)) values.add(1L);
+        if (has(mask, 4)) values.add(Timestamp.valueOf(START));
+        if (has(mask, 5)) values.add(Timestamp.valueOf(END));
+        values.add(PAGE.getOffset());
+        values.add(PAGE.getPageSize());
+
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            assertThat(statement.getParameterMetaData().getParameterCount()).isEqualTo(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private String searchSql(AuditLogFilter filter) {
+        captured.clear();
+        try (EntityManager entityManager = sessionFactory.createEntityManager()) {
+            try {
+                repository(entityManager).search(filter, PAGE);
+            } catch (RuntimeException e) {
+                // Esperado: o inspector interrompe antes de acessar o banco
+            }
+        }
+        assertThat(captured).isNotEmpty();
+        return captured.get(0);
+    }
+
+    private AuditLogRepositoryCustomImpl repository(EntityManager entityManager) {
+        AuditLogRepositoryCustomImpl repository = new AuditLogRepositoryCustomImpl(jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+        return repository;
+    }
+
+    private static AuditLogFilter filter(int mask) {
+        return AuditLogFilter.builder()
+                .entityType(has(mask, 0) ? "SALE" : null)
+                .entityId(has(mask, 1) ? 1L : null)
+                .action(has(mask, 2) ? "UPDATE" : null)
+                .userId(has(mask, 3) ? 1L : null)
+                .startDate(has(mask, 4) ? START : null)
+                .endDate(has(mask, 5) ? END : null)
+                .build();
+    }
+
+    private static boolean has(int mask, int bit) {
+        return (mask & 1 << bit) != 0;
+    }
+
+    private static class SqlCaptured extends RuntimeException {
+    }
+}
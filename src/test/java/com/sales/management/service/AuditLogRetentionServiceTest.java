@@ -0,0 +1,73 @@
+package com.sales.management.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditLogRetentionServiceTest {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final AuditLogRetentionService service = new AuditLogRetentionService(jdbcTemplate, transactionManager);
+
+    private final String expired = partition(YearMonth.now().minusMonths(14));
+    private final String alreadyDetached = partition(YearMonth.now().minusMonths(13));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "monthsAhead", 3);
+        ReflectionTestUtils.setField(service, "retentionMonths", 12);
+        ReflectionTestUtils.setField(service, "retentionMode", "drop");
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(jdbcTemplate.queryForObject(eq("SELECT pg_try_advisory_xact_lock(?)"), eq(Boolean.class), anyLong()))
+                .thenReturn(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(expired, alreadyDetached));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(expired))).thenReturn(1);
+        // Outro nó desanexou esta partição depois que a lista foi lida
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(alreadyDetached))).thenReturn(0);
+    }
+
+    @Test
+    void startupOnlyCreatesFuturePartitions() {
+        service.createPartitionsOnStartup();
+
+        verify(jdbcTemplate, times(4)).queryForObject(eq("SELECT create_audit_log_partition(?)"), eq(String.class), any(LocalDate.class));
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void scheduledRunSkipsPartitionsAlreadyDetached() {
+        service.maintainPartitions();
+
+        verify(jdbcTemplate).execute("ALTER TABLE audit_logs DETACH PARTITION " + expired);
+        verify(jdbcTemplate).execute("DROP TABLE " + expired);
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE audit_logs DETACH PARTITION " + alreadyDetached));
+        verify(jdbcTemplate, never()).execute("DROP TABLE " + alreadyDetached);
+    }
+
+    private static String partition(YearMonth month) {
+        return "audit_logs_" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,102 @@
+package com.sales.management.service;
+
+import com.sales.management.model.entity.AuditLog;
+import com.sales.management.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Benchmark simples (sem JMH) da gravação de auditoria em registros por segundo: COPY e INSERT em lote
+ * do AuditLogSink contra um INSERT por registro, cada um na sua transação (o que um save() do JPA por
+ * registro faz, sem o custo do Hibernate). Precisa de um banco migrado pelo Flyway com ao menos um usuário,
+ * informado nas mesmas variáveis do AuditLogRepositoryCustomImplTest (AUDIT_PLAN_DB_URL, _USER e _PASSWORD).
+ * Os registros gravados são removidos no fim.
+ */
+@EnabledIfEnvironmentVariable(named = "AUDIT_PLAN_DB_URL", matches = ".+")
+class AuditLogSinkBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+    private static final int BATCH_SIZE = 2_000;
+    /**
+     * Um commit por registro é lento demais para o lote inteiro
+     */
+    private static final int ROW_BY_ROW = 2_000;
+
+    @Test
+    void copyAndBatchInsertVersusRowByRow() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv("AUDIT_PLAN_DB_URL"),
+                System.getenv("AUDIT_PLAN_DB_USER"), System.getenv("AUDIT_PLAN_DB_PASSWORD"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        List<Long> users = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id LIMIT 1", Long.class);
+        assumeTrue(!users.isEmpty(), "o benchmark precisa de um usuário cadastrado");
+        String marker = "benchmark-" + UUID.randomUUID();
+        List<AuditLog> rows = rows(users.get(0), marker);
+
+        AuditLogSink sink = new AuditLogSink(dataSource, jdbcTemplate, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sink, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(sink, "capacity", ROWS);
+        sink.start();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            double copy = rowsPerSecond(ROWS, () -> batches(rows).forEach(sink::write));
+            double batchInsert = rowsPerSecond(ROWS, () -> batches(rows).forEach(batch ->
+                    transaction.executeWithoutResult(status -> ReflectionTestUtils.invokeMethod(sink, "insert", batch))));
+            double rowByRow = rowsPerSecond(ROW_BY_ROW, () -> rows.subList(0, ROW_BY_ROW).forEach(row ->
+                    transaction.executeWithoutResult(status -> ReflectionTestUtils.invokeMethod(sink, "insert", List.of(row)))));
+
+            System.out.printf("COPY %.0f registros/s, INSERT em lote %.0f registros/s, um por transação %.0f registros/s%n",
+                    copy, batchInsert, rowByRow);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs WHERE user_agent = ?",
+                    Long.class, marker)).isEqualTo(2L * ROWS + ROW_BY_ROW);
+            assertThat(copy).isGreaterThan(rowByRow);
+            assertThat(batchInsert).isGreaterThan(rowByRow);
+        } finally {
+            jdbcTemplate.update("DELETE FROM audit_logs WHERE user_agent = ?", marker);
+        }
+    }
+
+    private static double rowsPerSecond(int rows, Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return rows / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private static List<List<AuditLog>> batches(List<AuditLog> rows) {
+        return IntStream.iterate(0, from -> from < rows.size(), from -> from + BATCH_SIZE)
+                .mapToObj(from -> rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())))
+                .toList();
+    }
+
+    private static List<AuditLog> rows(Long userId, String marker) {
+        LocalDateTime now = LocalDateTime.now();
+        User user = User.builder().id(userId).build();
+        return IntStream.range(0, ROWS)
+                .mapToObj(i -> AuditLog.builder()
+                        .entityType("SALE")
+                        .entityId((long) i)
+                        .action("UPDATE")
+                        .changes("[{\"op\":\"replace\",\"path\":\"/status\",\"value\":\"CONFIRMED\"}]")
+                        .user(user)
+                        .ipAddress("127.0.0.1")
+                        .userAgent(marker)
+                        .timestamp(now)
+                        .build())
+                .toList();
+    }
+}
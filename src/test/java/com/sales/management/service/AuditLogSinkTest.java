@@ -0,0 +1,123 @@
+package com.sales.management.service;
+
+import com.sales.management.model.entity.AuditLog;
+import com.sales.management.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditLogSinkTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> inserted = new ArrayList<>();
+    private DataSource dataSource;
+    private AuditLogSink sink;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        // COPY indisponível: todo lote vai para o INSERT
+        when(dataSource.getConnection()).thenThrow(new SQLException("COPY indisponível"));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        // Linhas com entityId negativo violam uma constraint e derrubam o lote inteiro
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<AuditLog> rows = invocation.getArgument(1);
+                    if (rows.stream().anyMatch(row -> row.getEntityId() < 0)) {
+                        throw new DataIntegrityViolationException("violates check constraint");
+                    }
+                    rows.forEach(row -> inserted.add(row.getEntityId()));
+                    return new int[][]{};
+                });
+
+        sink = new AuditLogSink(dataSource, jdbcTemplate, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(sink, "batchSize", 2000);
+        ReflectionTestUtils.setField(sink, "capacity", 10);
+        sink.start();
+    }
+
+    @Test
+    void failedInsertBatchOnlyDropsTheOffendingRows() {
+        List<AuditLog> batch = LongStream.rangeClosed(1, 10)
+                .mapToObj(id -> auditLog(id == 3 || id == 8 ? -id : id))
+                .toList();
+
+        sink.write(batch);
+
+        assertThat(inserted).containsExactlyInAnyOrder(1L, 2L, 4L, 5L, 6L, 7L, 9L, 10L);
+        assertThat(rows("insert")).isEqualTo(8);
+        assertThat(rows("failed")).isEqualTo(2);
+        assertThat(rows("copy")).isZero();
+    }
+
+    @Test
+    void validBatchIsInsertedAtOnce() {
+        sink.write(List.of(auditLog(1), auditLog(2)));
+
+        assertThat(inserted).containsExactly(1L, 2L);
+        assertThat(rows("failed")).isZero();
+    }
+
+    @Test
+    void writtenUpToOnlyAdvancesOnceTheQueueIsWritten() throws Exception {
+        AuditLogSink sink = new AuditLogSink(dataSource, jdbcTemplate, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sink, "async", true);
+        ReflectionTestUtils.setField(sink, "batchSize", 2000);
+        ReflectionTestUtils.setField(sink, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(sink, "capacity", 10);
+        sink.start();
+        try {
+            LocalDateTime enqueuedAt = LocalDateTime.now();
+            sink.enqueue(auditLog(1));
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (sink.writtenUpTo().isBefore(enqueuedAt) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(sink.writtenUpTo()).isAfterOrEqualTo(enqueuedAt);
+            assertThat(inserted).containsExactly(1L);
+        } finally {
+            sink.stop();
+        }
+    }
+
+    private double rows(String method) {
+        return meterRegistry.get("audit.sink.rows").tag("method", method).counter().count();
+    }
+
+    private static AuditLog auditLog(long entityId) {
+        return AuditLog.builder()
+                .entityType("SALE")
+                .entityId(entityId)
+                .action("UPDATE")
+                .changes("[]")
+                .user(User.builder().id(1L).build())
+                .timestamp(LocalDateTime.of(2026, 1, 15, 10, 30))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.sales.management.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditStatsServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CacheService cacheService = mock(CacheService.class);
+    private final AuditLogSink auditLogSink = mock(AuditLogSink.class);
+    private final AuditStatsService auditStatsService = new AuditStatsService(jdbcTemplate, cacheService, auditLogSink);
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenReturn(List.of());
+        when(cacheService.getOrComputeMany(any(), any(), any(), any(), any(Long.class))).thenReturn(Map.of());
+    }
+
+    @Test
+    void daysPastTheSinkBacklogAreNotCached() {
+        // Fila de auditoria atrasada dois dias: só o dia anterior a ela está fechado
+        when(auditLogSink.writtenUpTo()).thenReturn(LocalDateTime.now().minusDays(2));
+
+        auditStatsService.getStats(today.minusDays(3).atStartOfDay(), today.minusDays(1).atTime(23, 59), "day");
+
+        verify(cacheService).getOrComputeMany(eq(List.of(today.minusDays(3))), any(), any(), any(), eq(86_400L));
+        verifyQuery(today.minusDays(2), today);
+    }
+
+    @Test
+    void recentlyClosedDayIsCachedBriefly() {
+        when(auditLogSink.writtenUpTo()).thenReturn(LocalDateTime.now());
+        // Logo após a meia-noite ontem ainda está dentro da margem de fechamento
+        LocalDate yesterday = LocalDateTime.now().minusHours(1).toLocalDate().minusDays(1);
+
+        auditStatsService.getStats(yesterday.minusDays(2).atStartOfDay(), yesterday.atTime(23, 59), "day");
+
+        verify(cacheService).getOrComputeMany(eq(List.of(yesterday.minusDays(2), yesterday.minusDays(1))),
+                any(), any(), any(), eq(86_400L));
+        verify(cacheService).getOrComputeMany(eq(List.of(yesterday)), any(), any(), any(), eq(600L));
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyQuery(LocalDate from, LocalDate to) {
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class),
+                eq(Timestamp.valueOf(from.atStartOfDay())), eq(Timestamp.valueOf(to.atStartOfDay())));
+    }
+}
@@ -0,0 +1,81 @@
+package com.sales.management.service;
+
+import com.sales.management.cache.CacheMetrics;
+import com.sales.management.cache.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CacheServiceTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisCircuitBreaker circuitBreaker;
+    private CacheService cacheService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        redisTemplate = mock(RedisTemplate.class);
+        circuitBreaker = mock(RedisCircuitBreaker.class);
+
+        cacheService = new CacheService();
+        ReflectionTestUtils.setField(cacheService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cacheService, "cacheMetrics", new CacheMetrics(meterRegistry));
+        ReflectionTestUtils.setField(cacheService, "circuitBreaker", circuitBreaker);
+    }
+
+    @Test
+    void deleteWhileRedisIsDownIsReplayedOnRecovery() {
+        redisDown();
+        cacheService.delete("saleProducts:1");
+        cacheService.delete("saleProducts:2");
+        verify(redisTemplate, never()).delete(anyString());
+
+        redisUp();
+        cacheService.replayPendingDeletes();
+
+        verify(redisTemplate).delete("saleProducts:1");
+        verify(redisTemplate).delete("saleProducts:2");
+
+        // Pendências já reaplicadas não são repetidas
+        cacheService.replayPendingDeletes();
+        verify(redisTemplate, times(2)).delete(anyString());
+    }
+
+    @Test
+    void deleteWithRedisAvailableIsNotDeferred() {
+        redisUp();
+        cacheService.delete("saleProducts:1");
+        cacheService.replayPendingDeletes();
+
+        verify(redisTemplate, times(1)).delete("saleProducts:1");
+    }
+
+    /**
+     * Circuito aberto: o breaker executa só o fallback
+     */
+    @SuppressWarnings("unchecked")
+    private void redisDown() {
+        doAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(1)).get())
+                .when(circuitBreaker).execute(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void redisUp() {
+        doAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(0)).get())
+                .when(circuitBreaker).execute(any(), any());
+    }
+}
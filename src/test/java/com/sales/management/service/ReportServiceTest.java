@@ -0,0 +1,55 @@
+package com.sales.management.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportServiceTest {
+
+    private final DashboardPartialService dashboardPartialService = mock(DashboardPartialService.class);
+    private final ReportService reportService = new ReportService(dashboardPartialService);
+
+    @BeforeEach
+    void setUp() {
+        // Um produto vendido em todo dia, para que o crescimento consulte a janela anterior
+        when(dashboardPartialService.getDay(any(), any())).thenAnswer(invocation -> {
+            DashboardPartialService.Partial partial = DashboardPartialService.Partial.empty(invocation.getArgument(0));
+            partial.getProducts().put(1L, new DashboardPartialService.ProductTotals("Produto", 1, BigDecimal.TEN));
+            return partial;
+        });
+    }
+
+    @Test
+    void dayRangeUsesOnlyCachedDays() {
+        assertOnlyCachedDays(LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 10));
+    }
+
+    @Test
+    void weekRangeUsesOnlyCachedDays() {
+        assertOnlyCachedDays(LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 15));
+    }
+
+    @Test
+    void monthRangeUsesOnlyCachedDays() {
+        assertOnlyCachedDays(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31));
+    }
+
+    private void assertOnlyCachedDays(LocalDate first, LocalDate last) {
+        reportService.getDashboardMetrics(first.atStartOfDay(), last.atTime(LocalTime.MAX), null);
+
+        long days = last.toEpochDay() - first.toEpochDay() + 1;
+        // Janela anterior: os mesmos n dias imediatamente antes
+        first.minusDays(days).datesUntil(last.plusDays(1))
+                .forEach(day -> verify(dashboardPartialService).getDay(day, null));
+        verify(dashboardPartialService, never()).compute(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,37 @@
+package com.sales.management.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagUtilTest {
+
+    @Test
+    void formatFollowsNegotiation() {
+        assertThat(ETagUtil.format(null)).isEqualTo("json");
+        assertThat(ETagUtil.format("*/*")).isEqualTo("json");
+        assertThat(ETagUtil.format("application/json")).isEqualTo("json");
+        assertThat(ETagUtil.format("application/x-jackson-smile")).isEqualTo("smile");
+        assertThat(ETagUtil.format("application/cbor, */*;q=0.1")).isEqualTo("cbor");
+        assertThat(ETagUtil.format("application/json;q=0.5, application/x-jackson-smile")).isEqualTo("smile");
+        assertThat(ETagUtil.format("not a media type")).isEqualTo("json");
+    }
+
+    @Test
+    void eTagDiffersByNegotiatedFormat() {
+        assertThat(ETagUtil.weak(request("application/json"), "product", 1L))
+                .isEqualTo(ETagUtil.weak(request(null), "product", 1L))
+                .isNotEqualTo(ETagUtil.weak(request("application/x-jackson-smile"), "product", 1L))
+                .isNotEqualTo(ETagUtil.weak(request("application/cbor"), "product", 1L));
+    }
+
+    private static ServletWebRequest request(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (accept != null) {
+            request.addHeader("Accept", accept);
+        }
+        return new ServletWebRequest(request);
+    }
+}
@@ -0,0 +1,25 @@
+package com.sales.management.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodingUtilTest {
+
+    @Test
+    void acceptsGzipFollowsQualityValues() {
+        assertThat(EncodingUtil.acceptsGzip(null)).isFalse();
+        assertThat(EncodingUtil.acceptsGzip("")).isFalse();
+        assertThat(EncodingUtil.acceptsGzip("gzip")).isTrue();
+        assertThat(EncodingUtil.acceptsGzip("deflate, GZIP;q=0.5, br")).isTrue();
+        assertThat(EncodingUtil.acceptsGzip("x-gzip")).isTrue();
+        assertThat(EncodingUtil.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(EncodingUtil.acceptsGzip("gzip; q=0.0, identity")).isFalse();
+        assertThat(EncodingUtil.acceptsGzip("br, deflate")).isFalse();
+        assertThat(EncodingUtil.acceptsGzip("*")).isTrue();
+        assertThat(EncodingUtil.acceptsGzip("*;q=0")).isFalse();
+        // gzip listado prevalece sobre *
+        assertThat(EncodingUtil.acceptsGzip("gzip;q=0, *")).isFalse();
+        assertThat(EncodingUtil.acceptsGzip("gzip;q=bad")).isFalse();
+    }
+}
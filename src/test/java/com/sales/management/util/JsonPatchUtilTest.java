@@ -0,0 +1,86 @@
+package com.sales.management.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonPatchUtilTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void diffAndApplyRoundTripNestedChanges() throws Exception {
+        JsonNode before = json("""
+                {"id": 1, "status": "PENDING", "notes": "obs", "items": [{"productId": 1, "quantity": 2}],
+                 "payment": {"paymentStatus": "PENDING", "paymentDate": null}}""");
+        JsonNode after = json("""
+                {"id": 1, "status": "CONFIRMED", "items": [{"productId": 1, "quantity": 3}],
+                 "payment": {"paymentStatus": "PAID", "paymentDate": "2026-01-15T10:30:00"}, "discount": 5}""");
+
+        ArrayNode patch = JsonPatchUtil.diff(before, after);
+
+        assertThat(JsonPatchUtil.apply(before, patch)).isEqualTo(after);
+        assertThat(patch).contains(
+                json("{\"op\": \"remove\", \"path\": \"/notes\"}"),
+                json("{\"op\": \"replace\", \"path\": \"/status\", \"value\": \"CONFIRMED\"}"),
+                json("{\"op\": \"replace\", \"path\": \"/payment/paymentStatus\", \"value\": \"PAID\"}"),
+                json("{\"op\": \"add\", \"path\": \"/discount\", \"value\": 5}"));
+        // Arrays diferentes são substituídos inteiros
+        assertThat(patch).contains(json("""
+                {"op": "replace", "path": "/items", "value": [{"productId": 1, "quantity": 3}]}"""));
+    }
+
+    @Test
+    void createAndReplayFromNothing() throws Exception {
+        JsonNode created = json("{\"id\": 7, \"amount\": 10.5}");
+        JsonNode updated = json("{\"id\": 7, \"amount\": 12}");
+
+        JsonNode state = JsonPatchUtil.apply(null, JsonPatchUtil.diff(null, created));
+        state = JsonPatchUtil.apply(state, JsonPatchUtil.diff(created, updated));
+
+        assertThat(state).isEqualTo(updated);
+        assertThat(JsonPatchUtil.diff(updated, updated)).isEmpty();
+    }
+
+    @Test
+    void escapesTildeAndSlashInPointers() throws Exception {
+        JsonNode before = json("{\"a/b\": 1, \"c~d\": {\"e~/f\": 1}}");
+        JsonNode after = json("{\"a/b\": 2, \"c~d\": {\"e~/f\": 2}, \"~1\": true}");
+
+        ArrayNode patch = JsonPatchUtil.diff(before, after);
+
+        assertThat(patch).extracting(op -> op.get("path").asText())
+                .containsExactlyInAnyOrder("/a~1b", "/c~0d/e~0~1f", "/~01");
+        assertThat(JsonPatchUtil.apply(before, patch)).isEqualTo(after);
+    }
+
+    @Test
+    void appliesArrayOperations() throws Exception {
+        JsonNode document = json("{\"items\": [1, 2, 3]}");
+        JsonNode patch = json("""
+                [{"op": "add", "path": "/items/1", "value": 9},
+                 {"op": "remove", "path": "/items/0"},
+                 {"op": "replace", "path": "/items/2", "value": 4},
+                 {"op": "add", "path": "/items/-", "value": 5}]""");
+
+        assertThat(JsonPatchUtil.apply(document, patch)).isEqualTo(json("{\"items\": [9, 2, 4, 5]}"));
+        // O documento original não é alterado
+        assertThat(document).isEqualTo(json("{\"items\": [1, 2, 3]}"));
+    }
+
+    @Test
+    void rejectsPathsMissingFromTheDocument() throws Exception {
+        JsonNode patch = json("[{\"op\": \"replace\", \"path\": \"/payment/status\", \"value\": \"PAID\"}]");
+
+        assertThatThrownBy(() -> JsonPatchUtil.apply(json("{}"), patch))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private JsonNode json(String value) throws Exception {
+        return objectMapper.readTree(value);
+    }
+}